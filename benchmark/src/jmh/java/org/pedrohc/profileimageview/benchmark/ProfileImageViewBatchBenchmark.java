@@ -0,0 +1,46 @@
+package org.pedrohc.profileimageview.benchmark;
+
+import org.pedrohc.profileimageview.ProfileImageViewBatchRenderer;
+
+import java.util.Locale;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+public class ProfileImageViewBatchBenchmark {
+
+    /**
+     * Throughput of {@link ProfileImageViewBatchRenderer} from 1 thread to every core<br>
+     *     Arguments: [count] [size] [threads]
+     *
+     * @param args
+     * @throws InterruptedException
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final int count = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int size = args.length > 1 ? Integer.parseInt(args[1]) : 128;
+        final int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        // Powers of two, then all the threads
+        for(int threads=1; threads<=maxThreads; threads = threads == maxThreads ? maxThreads + 1 : Math.min(threads * 2, maxThreads)) {
+            for(final boolean shadow : new boolean[] {false, true}) {
+                final float perThread = ProfileImageViewBatchRenderer.benchmark(threads, count, size, shadow);
+                System.out.println(String.format(Locale.US, "threads=%d size=%d shadow=%b: %.1f images/s/core, %.1f images/s",
+                        threads, size, shadow, perThread, perThread * threads));
+            }
+        }
+    }
+}
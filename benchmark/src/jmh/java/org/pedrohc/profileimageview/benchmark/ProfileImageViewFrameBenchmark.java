@@ -0,0 +1,96 @@
+package org.pedrohc.profileimageview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pedrohc.profileimageview.ProfileImageView;
+
+import java.util.List;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+@State(Scope.Thread)
+public class ProfileImageViewFrameBenchmark {
+
+    @Param({"3", "4", "8", "16", "32", "64", "128", "360"})
+    public int vertexCount;
+
+    // Private Variables
+    private ProfileImageView.Frame mFrame;
+    private ProfileImageView.Frame mSealedFrame;
+    private float[] mOut;
+
+    @Setup
+    public void setup() {
+        mFrame = ProfileImageView.Frame.createNgon(vertexCount, 0);
+        mSealedFrame = ProfileImageView.Frame.createNgon(vertexCount, 0);
+        mSealedFrame.seal();
+        mOut = new float[vertexCount * 2];
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame createNgon() {
+        return ProfileImageView.Frame.createNgon(vertexCount, 0);
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame createNgonSealed() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createNgon(vertexCount, 0);
+        frame.seal();
+        return frame;
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame cloneFrame() {
+        return mFrame.clone();
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame cloneSealed() {
+        return mSealedFrame.clone();
+    }
+
+    @Benchmark
+    public List<ProfileImageView.Frame.FrameVertex> getVertices() {
+        return mFrame.getVertices();
+    }
+
+    @Benchmark
+    public List<ProfileImageView.Frame.FrameVertex> getVerticesSealed() {
+        return mSealedFrame.getVertices();
+    }
+
+    @Benchmark
+    public float[] copyVertices() {
+        mFrame.copyVertices(mOut);
+        return mOut;
+    }
+
+    @Benchmark
+    public float[] copyVerticesSealed() {
+        mSealedFrame.copyVertices(mOut);
+        return mOut;
+    }
+
+    @Benchmark
+    public int hashCodeFrame() {
+        return mFrame.hashCode();
+    }
+}
@@ -0,0 +1,65 @@
+package org.pedrohc.profileimageview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.pedrohc.profileimageview.ProfileImageView;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+@State(Scope.Thread)
+public class ProfileImageViewShapeBenchmark {
+
+    @Param({"0.25", "1.0"})
+    public float size;
+
+    @Benchmark
+    public ProfileImageView.Frame createEllipse() {
+        return ProfileImageView.Frame.createEllipse(size, 1.0f);
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame createRoundedSquare() {
+        return ProfileImageView.Frame.createRoundedSquare(size);
+    }
+
+    /**
+     * Sealing flattens the curves and computes every level of detail
+     *
+     * @return
+     */
+    @Benchmark
+    public ProfileImageView.Frame createEllipseSealed() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createEllipse(size, 1.0f);
+        frame.seal();
+        return frame;
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame createRoundedSquareSealed() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createRoundedSquare(size);
+        frame.seal();
+        return frame;
+    }
+
+    @Benchmark
+    public int getVertexCountEllipse() {
+        return ProfileImageView.Frame.createEllipse(size, 1.0f).getVertexCount();
+    }
+}
@@ -0,0 +1,101 @@
+package org.pedrohc.profileimageview.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pedrohc.profileimageview.ProfileImageView;
+import org.pedrohc.profileimageview.ProfileImageViewUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+@State(Scope.Thread)
+public class ProfileImageViewUtilsBenchmark {
+
+    @Param({"3", "4", "8", "16", "32", "64", "128", "360"})
+    public int vertexCount;
+
+    // Private Variables
+    private List<ProfileImageView.Frame.FrameVertex> mList;
+    private float[] mVertices;
+    private float[] mOut;
+
+    /**
+     * Setup<br>
+     *     A mutable list as the one the compatibility API returns.
+     */
+    @Setup
+    public void setup() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createNgon(vertexCount, 0);
+        mList = new ArrayList<>(frame.getVertices());
+        mVertices = new float[frame.getVertexCount() * 2];
+        frame.copyVertices(mVertices);
+        mOut = new float[4];
+    }
+
+    @Benchmark
+    public float calculateCenterScaleList() {
+        return ProfileImageViewUtils.calculateCenterScale(mList);
+    }
+
+    @Benchmark
+    public float calculateCenterScaleArray() {
+        return ProfileImageViewUtils.calculateCenterScale(mVertices, vertexCount);
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame.FrameVertex calculateFrameCentroidList() {
+        return ProfileImageViewUtils.calculateFrameCentroid(mList);
+    }
+
+    @Benchmark
+    public float[] calculateFrameCentroidArray() {
+        ProfileImageViewUtils.calculateFrameCentroid(mVertices, vertexCount, mOut);
+        return mOut;
+    }
+
+    @Benchmark
+    public ProfileImageView.Frame.FrameVertex calculateCenter() {
+        return ProfileImageViewUtils.calculateCenter(mList);
+    }
+
+    @Benchmark
+    public float calculateWidth() {
+        return ProfileImageViewUtils.calculateWidth(mList);
+    }
+
+    @Benchmark
+    public float calculateHeight() {
+        return ProfileImageViewUtils.calculateHeight(mList);
+    }
+
+    @Benchmark
+    public float[] calculateBoundsArray() {
+        ProfileImageViewUtils.calculateBounds(mVertices, vertexCount, mOut);
+        return mOut;
+    }
+
+    @Benchmark
+    public boolean isConvexArray() {
+        return ProfileImageViewUtils.isConvex(mVertices, vertexCount);
+    }
+}
@@ -0,0 +1,119 @@
+package org.material.galleryexample;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Frame intervals and allocations of one measured run.
+ */
+public class FrameStats {
+
+    private final long[] mIntervals;
+    private final long[] mAllocations;
+    private final long[] mAllocatedBytes;
+    private final long mRefreshPeriod;
+    private int mCount;
+
+    /**
+     * @param capacity Frames to record
+     * @param refreshPeriod Display vsync period in nanoseconds
+     */
+    public FrameStats(int capacity, long refreshPeriod) {
+        mIntervals = new long[capacity];
+        mAllocations = new long[capacity];
+        mAllocatedBytes = new long[capacity];
+        mRefreshPeriod = refreshPeriod;
+    }
+
+    /**
+     * Add a frame, no allocation so it can be called while counting
+     *
+     * @param interval Nanoseconds since the previous frame
+     * @param allocations Objects allocated during the frame, -1 if not counted
+     * @param allocatedBytes Bytes allocated during the frame, -1 if not counted
+     */
+    public void add(long interval, long allocations, long allocatedBytes) {
+        if(mCount == mIntervals.length)
+            return;
+        mIntervals[mCount] = interval;
+        mAllocations[mCount] = allocations;
+        mAllocatedBytes[mCount] = allocatedBytes;
+        mCount++;
+    }
+
+    public boolean isFull() {
+        return mCount == mIntervals.length;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * Percentile, nearest rank
+     *
+     * @param percentile Between (0, 100]
+     * @return Nanoseconds
+     */
+    public long getPercentile(float percentile) {
+        if(mCount == 0)
+            return 0;
+        final long[] sorted = Arrays.copyOf(mIntervals, mCount);
+        Arrays.sort(sorted);
+        final int rank = (int) Math.ceil(percentile / 100.0f * mCount);
+        return sorted[Math.min(Math.max(rank, 1), mCount) - 1];
+    }
+
+    /**
+     * Janky frames, a frame is janky when it took more than one and a half vsync
+     *
+     * @return
+     */
+    public int getJankCount() {
+        int jank = 0;
+        for(int i=0; i<mCount; i++)
+            if(mIntervals[i] > mRefreshPeriod * 3 / 2)
+                jank++;
+        return jank;
+    }
+
+    /**
+     * Average of the counted values
+     *
+     * @param values
+     * @return -1 if not counted
+     */
+    private double getAverage(long[] values) {
+        if(mCount == 0 || values[0] < 0)
+            return -1;
+        long sum = 0;
+        for(int i=0; i<mCount; i++)
+            sum += values[i];
+        return (double) sum / mCount;
+    }
+
+    /**
+     * To JSON
+     *
+     * @param name
+     * @return
+     * @throws JSONException
+     */
+    public JSONObject toJson(String name) throws JSONException {
+        final JSONObject json = new JSONObject();
+        json.put("name", name);
+        json.put("frames", mCount);
+        json.put("refreshPeriodMs", mRefreshPeriod / 1e6);
+        json.put("p50Ms", getPercentile(50) / 1e6);
+        json.put("p90Ms", getPercentile(90) / 1e6);
+        json.put("p99Ms", getPercentile(99) / 1e6);
+        json.put("maxMs", getPercentile(100) / 1e6);
+        json.put("jankCount", getJankCount());
+        json.put("jankPercent", mCount == 0 ? 0 : getJankCount() * 100.0 / mCount);
+        json.put("allocationsPerFrame", getAverage(mAllocations));
+        json.put("allocatedBytesPerFrame", getAverage(mAllocatedBytes));
+        return json;
+    }
+}
@@ -0,0 +1,300 @@
+package org.material.galleryexample;
+
+import android.os.Build;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.v7.widget.RecyclerView;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.material.profileimv.ProfileImageView;
+import org.material.profileimv.ProfileImageViewMetrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame timing of the gallery while scrolling and pressing.<br>
+ * Each test runs the interaction twice, once timed and once counting allocations, and appends
+ * the results to frame-timing.json in the app external files dir, eg:<br>
+ *     ./gradlew :example_gallery:connectedAndroidTest<br>
+ *     adb pull /sdcard/Android/data/org.material.galleryexample/files/frame-timing.json
+ */
+public class GalleryFrameTimingTest extends ActivityInstrumentationTestCase2<MainActivity> {
+
+    private static final String TAG = "FrameTiming";
+    private static final String RESULT_FILE = "frame-timing.json";
+    private static final int WARM_UP_FRAMES = 30;
+    private static final int MEASURED_FRAMES = 300;
+    private static final int SCROLL_STEP = 12; // dp per frame
+    private static final int PRESS_FRAMES = 20;
+    private static final long TIMEOUT = 60; // s
+
+    // Results of every test in this run
+    private static final JSONArray sResults = new JSONArray();
+
+    private RecyclerView[] mLists;
+    private long mRefreshPeriod;
+
+    public GalleryFrameTimingTest() {
+        super(MainActivity.class);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        final MainActivity activity = getActivity();
+        mLists = new RecyclerView[] {
+                (RecyclerView) activity.findViewById(R.id.list_1),
+                (RecyclerView) activity.findViewById(R.id.list_2),
+                (RecyclerView) activity.findViewById(R.id.list_3)
+        };
+        mRefreshPeriod = (long) (1e9 / activity.getWindowManager().getDefaultDisplay().getRefreshRate());
+        getInstrumentation().waitForIdleSync();
+    }
+
+    public void testScrollCircle() throws Throwable {
+        measureScroll("scroll_circle_shadow", ProfileImageView.Frame.SHAPE_CIRCLE, true, View.LAYER_TYPE_NONE);
+    }
+
+    public void testScrollCircleNoShadow() throws Throwable {
+        measureScroll("scroll_circle_no_shadow", ProfileImageView.Frame.SHAPE_CIRCLE, false, View.LAYER_TYPE_NONE);
+    }
+
+    public void testScrollPolygon() throws Throwable {
+        measureScroll("scroll_hexagon_shadow", ProfileImageView.Frame.SHAPE_HEXAGON, true, View.LAYER_TYPE_NONE);
+    }
+
+    public void testScrollPolygonNoShadow() throws Throwable {
+        measureScroll("scroll_hexagon_no_shadow", ProfileImageView.Frame.SHAPE_HEXAGON, false, View.LAYER_TYPE_NONE);
+    }
+
+    public void testScrollConcavePolygon() throws Throwable {
+        measureScroll("scroll_star_shadow", ProfileImageView.Frame.SHAPE_STAR, true, View.LAYER_TYPE_NONE);
+    }
+
+    public void testScrollSoftwareLayer() throws Throwable {
+        measureScroll("scroll_hexagon_shadow_software", ProfileImageView.Frame.SHAPE_HEXAGON, true, View.LAYER_TYPE_SOFTWARE);
+    }
+
+    public void testFeaturePress() throws Throwable {
+        // Only the feature list, as the gallery shows it
+        final RecyclerView list = mLists[1];
+        final Interaction press = new Interaction() {
+            private ProfileImageView mPressed;
+            private long mDownTime;
+
+            @Override
+            public void onFrame(int frame) {
+                final int step = frame % (PRESS_FRAMES * 2);
+                if(step == 0 && list.getChildCount() > 0) {
+                    final View child = list.getChildAt((frame / (PRESS_FRAMES * 2)) % list.getChildCount());
+                    mPressed = (ProfileImageView) child.findViewById(R.id.profile_view);
+                    mDownTime = SystemClock.uptimeMillis();
+                    dispatch(mPressed, MotionEvent.ACTION_DOWN, mDownTime);
+                } else if(step == PRESS_FRAMES && mPressed != null) {
+                    dispatch(mPressed, MotionEvent.ACTION_UP, mDownTime);
+                    mPressed = null;
+                }
+            }
+        };
+        record("feature_press", press);
+    }
+
+    /**
+     * Scroll every list back and forth
+     *
+     * @param name
+     * @param frame
+     * @param shadow
+     * @param layerType
+     * @throws Throwable
+     */
+    private void measureScroll(String name, final ProfileImageView.Frame frame, final boolean shadow, final int layerType) throws Throwable {
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                for(RecyclerView list : mLists)
+                    applyVariant(list, frame, shadow, layerType);
+            }
+        });
+        getInstrumentation().waitForIdleSync();
+        final int step = (int) (SCROLL_STEP * getActivity().getResources().getDisplayMetrics().density);
+        record(name, new Interaction() {
+            private int mDirection = 1;
+
+            @Override
+            public void onFrame(int frame) {
+                if(!mLists[0].canScrollHorizontally(mDirection))
+                    mDirection = -mDirection;
+                for(RecyclerView list : mLists)
+                    list.scrollBy(step * mDirection, 0);
+            }
+        });
+    }
+
+    /**
+     * Apply variant to the bound and the later bound views
+     *
+     * @param list
+     * @param frame
+     * @param shadow
+     * @param layerType
+     */
+    private static void applyVariant(RecyclerView list, final ProfileImageView.Frame frame, final boolean shadow, final int layerType) {
+        list.addOnChildAttachStateChangeListener(new RecyclerView.OnChildAttachStateChangeListener() {
+            @Override
+            public void onChildViewAttachedToWindow(View view) {
+                applyVariant((ProfileImageView) view.findViewById(R.id.profile_view), frame, shadow, layerType);
+            }
+
+            @Override
+            public void onChildViewDetachedFromWindow(View view) {
+            }
+        });
+        for(int i=0; i<list.getChildCount(); i++)
+            applyVariant((ProfileImageView) list.getChildAt(i).findViewById(R.id.profile_view), frame, shadow, layerType);
+    }
+
+    private static void applyVariant(ProfileImageView view, ProfileImageView.Frame frame, boolean shadow, int layerType) {
+        view.setFrame(frame);
+        view.setShadow(shadow);
+        if(view.getLayerType() != layerType)
+            view.setLayerType(layerType, null);
+    }
+
+    private static void dispatch(View view, int action, long downTime) {
+        final MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action,
+                view.getWidth() / 2.0f, view.getHeight() / 2.0f, 0);
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * Record the interaction, timed and then counting allocations
+     *
+     * @param name
+     * @param interaction
+     * @throws Throwable
+     */
+    private void record(String name, Interaction interaction) throws Throwable {
+        final FrameStats timed = run(interaction, false);
+        // Metrics only while counting, the timed run stays untouched
+        final ProfileImageViewMetrics metrics = ProfileImageViewMetrics.getInstance();
+        metrics.reset();
+        metrics.setEnabled(true);
+        final FrameStats counted;
+        try {
+            counted = run(interaction, true);
+        } finally {
+            metrics.setEnabled(false);
+        }
+        final ProfileImageViewMetrics.Snapshot snapshot = metrics.getSnapshot();
+        final JSONObject result = timed.toJson(name);
+        final JSONObject allocations = counted.toJson(name);
+        result.put("allocationsPerFrame", allocations.get("allocationsPerFrame"));
+        result.put("allocatedBytesPerFrame", allocations.get("allocatedBytesPerFrame"));
+        result.put("shaderMatrixRecomputed", snapshot.getCounter(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_RECOMPUTED));
+        result.put("shaderMatrixSkipped", snapshot.getCounter(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_SKIPPED));
+        sResults.put(result);
+        Log.i(TAG, result.toString());
+        writeResults();
+        assertEquals(MEASURED_FRAMES, timed.getCount());
+    }
+
+    private FrameStats run(final Interaction interaction, boolean countAllocations) throws Throwable {
+        final Recorder recorder = new Recorder(interaction, new FrameStats(MEASURED_FRAMES, mRefreshPeriod), countAllocations);
+        runTestOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                Choreographer.getInstance().postFrameCallback(recorder);
+            }
+        });
+        assertTrue("Timed out", recorder.mDone.await(TIMEOUT, TimeUnit.SECONDS));
+        getInstrumentation().waitForIdleSync();
+        return recorder.mStats;
+    }
+
+    private void writeResults() throws JSONException, IOException {
+        final JSONObject root = new JSONObject();
+        root.put("device", Build.MANUFACTURER + " " + Build.MODEL);
+        root.put("sdk", Build.VERSION.SDK_INT);
+        root.put("refreshPeriodMs", mRefreshPeriod / 1e6);
+        root.put("results", sResults);
+        File dir = getInstrumentation().getTargetContext().getExternalFilesDir(null);
+        if(dir == null)
+            dir = getInstrumentation().getTargetContext().getFilesDir();
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(new File(dir, RESULT_FILE)), "UTF-8");
+        try {
+            writer.write(root.toString(2));
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Interaction, called on the main thread before each frame
+     */
+    private interface Interaction {
+        void onFrame(int frame);
+    }
+
+    /**
+     * Recorder, reposts itself every vsync
+     */
+    private static class Recorder implements Choreographer.FrameCallback {
+
+        private final Interaction mInteraction;
+        private final FrameStats mStats;
+        private final boolean mCountAllocations;
+        private final CountDownLatch mDone = new CountDownLatch(1);
+        private long mLastFrameTime;
+        private int mLastAllocations;
+        private int mLastAllocatedBytes;
+        private int mFrame;
+
+        Recorder(Interaction interaction, FrameStats stats, boolean countAllocations) {
+            mInteraction = interaction;
+            mStats = stats;
+            mCountAllocations = countAllocations;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public void doFrame(long frameTimeNanos) {
+            if(mFrame == WARM_UP_FRAMES && mCountAllocations) {
+                Debug.resetThreadAllocCount();
+                Debug.resetThreadAllocSize();
+                Debug.startAllocCounting();
+            } else if(mFrame > WARM_UP_FRAMES) {
+                final int allocations = mCountAllocations ? Debug.getThreadAllocCount() : 0;
+                final int allocatedBytes = mCountAllocations ? Debug.getThreadAllocSize() : 0;
+                mStats.add(frameTimeNanos - mLastFrameTime,
+                        mCountAllocations ? allocations - mLastAllocations : -1,
+                        mCountAllocations ? allocatedBytes - mLastAllocatedBytes : -1);
+                mLastAllocations = allocations;
+                mLastAllocatedBytes = allocatedBytes;
+            }
+            mLastFrameTime = frameTimeNanos;
+            if(mStats.isFull()) {
+                if(mCountAllocations)
+                    Debug.stopAllocCounting();
+                mDone.countDown();
+                return;
+            }
+            mInteraction.onFrame(mFrame++);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -32,11 +32,13 @@ public class SimpleListAdapter extends RecyclerView.Adapter<SimpleListAdapter.Pr
     @Override
     public void onBindViewHolder(ProfileHolder holder, int position) {
         SimpleListModel model = mList.get(position);
-        holder.view.setImage(model.image);
-        holder.view.setFeatureIcon(model.featureIcon);
-        holder.view.setFeatureText(model.featureText + "");
-        holder.view.setFrame(model.frame.clone());
-        holder.view.setMode(model.mode);
+        holder.view.edit()
+                .setImage(model.image)
+                .setFeatureIcon(model.featureIcon)
+                .setFeatureText(model.featureText + "")
+                .setFrame(model.frame)
+                .setMode(model.mode)
+                .apply();
     }
 
     @Override
@@ -17,7 +17,7 @@ public class SimpleListModel {
 
     public  SimpleListModel(Bitmap image, ProfileImageView.Frame frame, ProfileImageView.Mode mode) {
         this.image = image;
-        this.frame = frame;
+        this.frame = frame.seal();
         this.mode = mode;
     }
 
@@ -25,7 +25,7 @@ public class SimpleListModel {
         this.image = image;
         this.featureIcon = featureIcon;
         this.featureText = featureText;
-        this.frame = frame;
+        this.frame = frame.seal();
         this.mode = mode;
     }
 }
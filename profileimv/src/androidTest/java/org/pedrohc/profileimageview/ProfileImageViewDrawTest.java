@@ -0,0 +1,125 @@
+package org.pedrohc.profileimageview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * Checks that steady state drawing does not allocate.
+ */
+public class ProfileImageViewDrawTest extends AndroidTestCase {
+
+    // Consts
+    final private static int VIEW_SIZE = 200;
+    final private static int WARM_UP_DRAWS = 5;
+    final private static int COUNTED_DRAWS = 50;
+
+    private Bitmap mImage;
+    private Bitmap mFeatureIcon;
+    private Bitmap mTarget;
+    private Canvas mCanvas;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mImage = Bitmap.createBitmap(66, 66, Bitmap.Config.ARGB_8888);
+        mFeatureIcon = Bitmap.createBitmap(34, 34, Bitmap.Config.ARGB_8888);
+        mTarget = Bitmap.createBitmap(VIEW_SIZE, VIEW_SIZE, Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(mTarget);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mImage.recycle();
+        mFeatureIcon.recycle();
+        mTarget.recycle();
+        super.tearDown();
+    }
+
+    public void testPortraitDrawDoesNotAllocate() {
+        assertNoAllocations(createView(ProfileImageView.Mode.PORTRAIT));
+    }
+
+    public void testSelectableDrawDoesNotAllocate() {
+        assertNoAllocations(createView(ProfileImageView.Mode.SELECTABLE));
+    }
+
+    public void testFeatureDrawDoesNotAllocate() {
+        assertNoAllocations(createView(ProfileImageView.Mode.FEATURE));
+    }
+
+    public void testFeatureTextDrawDoesNotAllocate() {
+        final ProfileImageView view = createView(ProfileImageView.Mode.FEATURE);
+        view.setFeatureText("A feature label long enough to be ellipsized");
+        assertNoAllocations(view);
+    }
+
+    public void testFeatureTextIsRefittedAfterChange() {
+        final ProfileImageView view = createView(ProfileImageView.Mode.FEATURE);
+        view.setFeatureText("Set");
+        view.onDraw(mCanvas);
+        assertEquals("Set", view.getFittedFeatureText());
+        view.setFeatureText("Another feature label long enough to be ellipsized");
+        view.onDraw(mCanvas);
+        assertTrue(view.getFittedFeatureText().startsWith("Another"));
+        assertTrue(view.getFittedFeatureText().endsWith(".."));
+        assertNoAllocations(view);
+    }
+
+    public void testFeatureTextIsRefittedAfterFrameOrThemeChange() {
+        final ProfileImageView view = createView(ProfileImageView.Mode.FEATURE);
+        view.setFeatureText("Another feature label long enough to be ellipsized");
+        view.onDraw(mCanvas);
+        assertNotNull(view.getFittedFeatureText());
+        // Dropped on change, fitted again by the next draw
+        view.setFrame(ProfileImageView.Frame.SHAPE_SQUARE);
+        assertNull(view.getFittedFeatureText());
+        view.onDraw(mCanvas);
+        assertTrue(view.getFittedFeatureText().startsWith("Another"));
+        final ProfileImageView.Theme theme = view.getTheme();
+        theme.borderRadius *= 4;
+        view.setTheme(theme);
+        assertNull(view.getFittedFeatureText());
+        view.onDraw(mCanvas);
+        assertTrue(view.getFittedFeatureText().startsWith("Another"));
+    }
+
+    /**
+     * Create a laid out view
+     *
+     * @param mode
+     * @return
+     */
+    private ProfileImageView createView(final ProfileImageView.Mode mode) {
+        final ProfileImageView view = new ProfileImageView(getContext());
+        view.setImage(mImage);
+        view.setFeatureIcon(mFeatureIcon);
+        view.setFeatureText(null);
+        view.setFrame(ProfileImageView.Frame.SHAPE_STAR);
+        view.setBorder(true);
+        view.setMode(mode);
+        final int spec = View.MeasureSpec.makeMeasureSpec(VIEW_SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, VIEW_SIZE, VIEW_SIZE);
+        return view;
+    }
+
+    /**
+     * Assert that onDraw does not allocate after warming up
+     *
+     * @param view
+     */
+    private void assertNoAllocations(final ProfileImageView view) {
+        for(int i=0; i<WARM_UP_DRAWS; i++)
+            view.onDraw(mCanvas);
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+        for(int i=0; i<COUNTED_DRAWS; i++)
+            view.onDraw(mCanvas);
+        final int allocations = Debug.getThreadAllocCount();
+        Debug.stopAllocCounting();
+        assertEquals("Allocations in " + view.getMode() + " mode", 0, allocations);
+    }
+}
@@ -0,0 +1,143 @@
+package org.pedrohc.profileimageview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * Checks that an edit refreshes the view once and only lays it out when the image size changes.
+ */
+public class ProfileImageViewEditTest extends AndroidTestCase {
+
+    // Consts
+    final private static int VIEW_SIZE = 200;
+
+    private Bitmap mImage;
+    private Bitmap mOtherImage;
+    private Bitmap mLargerImage;
+    private Bitmap mFeatureIcon;
+    private CountingView mView;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mImage = Bitmap.createBitmap(66, 66, Bitmap.Config.ARGB_8888);
+        mOtherImage = Bitmap.createBitmap(66, 66, Bitmap.Config.ARGB_8888);
+        mLargerImage = Bitmap.createBitmap(120, 120, Bitmap.Config.ARGB_8888);
+        mFeatureIcon = Bitmap.createBitmap(34, 34, Bitmap.Config.ARGB_8888);
+        mView = new CountingView(getContext());
+        mView.edit()
+                .setImage(mImage)
+                .setFeatureIcon(mFeatureIcon)
+                .setFrame(ProfileImageView.Frame.SHAPE_CIRCLE)
+                .setMode(ProfileImageView.Mode.FEATURE)
+                .apply();
+        layout(mView);
+        mView.reset();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mImage.recycle();
+        mOtherImage.recycle();
+        mLargerImage.recycle();
+        mFeatureIcon.recycle();
+        super.tearDown();
+    }
+
+    public void testSameSizeEditOnlyInvalidatesOnce() {
+        mView.edit()
+                .setImage(mOtherImage)
+                .setFeatureIcon(mFeatureIcon)
+                .setFeatureText("Bound")
+                .setFrame(ProfileImageView.Frame.SHAPE_HEXAGON)
+                .setMode(ProfileImageView.Mode.FEATURE)
+                .apply();
+        assertEquals(0, mView.mLayoutRequests);
+        assertEquals(1, mView.mInvalidates);
+    }
+
+    public void testImageSizeChangeRequestsLayout() {
+        mView.edit()
+                .setImage(mLargerImage)
+                .setFrame(ProfileImageView.Frame.SHAPE_HEXAGON)
+                .apply();
+        assertEquals(1, mView.mLayoutRequests);
+        assertEquals(1, mView.mInvalidates);
+    }
+
+    public void testUnchangedEditDoesNothing() {
+        mView.edit()
+                .setImage(mImage)
+                .setFeatureIcon(mFeatureIcon)
+                .setFrame(ProfileImageView.Frame.SHAPE_CIRCLE)
+                .apply();
+        assertEquals(0, mView.mLayoutRequests);
+        assertEquals(0, mView.mInvalidates);
+    }
+
+    public void testRelayoutSkipsShaderMatrix() {
+        final ProfileImageViewMetrics metrics = ProfileImageViewMetrics.getInstance();
+        metrics.reset();
+        metrics.setEnabled(true);
+        try {
+            layout(mView);
+            ProfileImageViewMetrics.Snapshot snapshot = metrics.getSnapshot();
+            assertEquals(0, snapshot.getCounter(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_RECOMPUTED));
+            assertEquals(1, snapshot.getCounter(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_SKIPPED));
+            // Padding and view owned inputs are tracked
+            mView.setPadding(4, 4, 4, 4);
+            layout(mView);
+            mView.setBorder(true);
+            snapshot = metrics.getSnapshot();
+            assertEquals(2, snapshot.getCounter(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_RECOMPUTED));
+            assertEquals(1, snapshot.getCounter(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_SKIPPED));
+        } finally {
+            metrics.setEnabled(false);
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Measure and layout, even if nothing changed
+     *
+     * @param view
+     */
+    private static void layout(final View view) {
+        view.forceLayout();
+        final int spec = View.MeasureSpec.makeMeasureSpec(VIEW_SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, VIEW_SIZE, VIEW_SIZE);
+    }
+
+    /**
+     * Counts layout requests and invalidates
+     */
+    private static class CountingView extends ProfileImageView {
+
+        private int mLayoutRequests;
+        private int mInvalidates;
+
+        CountingView(final Context context) {
+            super(context);
+        }
+
+        void reset() {
+            mLayoutRequests = 0;
+            mInvalidates = 0;
+        }
+
+        @Override
+        public void requestLayout() {
+            mLayoutRequests++;
+            super.requestLayout();
+        }
+
+        @Override
+        public void invalidate() {
+            mInvalidates++;
+            super.invalidate();
+        }
+    }
+}
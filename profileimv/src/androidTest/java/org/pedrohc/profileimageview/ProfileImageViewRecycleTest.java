@@ -0,0 +1,34 @@
+package org.pedrohc.profileimageview;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * Checks that cached bitmaps are released when the view lets them go.
+ */
+public class ProfileImageViewRecycleTest extends AndroidTestCase {
+
+    // Consts
+    final private static int VIEW_SIZE = 200;
+    final private static int RES_ID = android.R.drawable.star_big_on;
+
+    public void testSharedImageAndFeatureIconAreReleased() {
+        final ProfileImageView view = new ProfileImageView(getContext());
+        final int spec = View.MeasureSpec.makeMeasureSpec(VIEW_SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, VIEW_SIZE, VIEW_SIZE);
+        // Same resource and decode size, both get the same cached bitmap
+        view.setImageFromResource(RES_ID);
+        view.setFeatureIconFromResource(RES_ID);
+        final int decodeSize = ProfileImageViewUtils.calculateDecodeSize(VIEW_SIZE, VIEW_SIZE, view.getTheme());
+        final ProfileImageViewBitmapCache cache = ProfileImageViewBitmapCache.getInstance();
+        assertTrue(cache.contains(RES_ID, decodeSize));
+        // Still used by the feature icon
+        view.setImageFromResource(-1);
+        cache.trimToSize(0);
+        assertTrue(cache.contains(RES_ID, decodeSize));
+        view.setFeatureIconFromResource(-1);
+        cache.trimToSize(0);
+        assertFalse(cache.contains(RES_ID, decodeSize));
+    }
+}
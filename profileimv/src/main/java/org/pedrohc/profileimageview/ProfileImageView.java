@@ -1,5 +1,6 @@
 package org.pedrohc.profileimageview;
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
@@ -7,6 +8,7 @@ import android.graphics.BitmapShader;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
+import android.graphics.Outline;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PorterDuff;
@@ -14,13 +16,14 @@ import android.graphics.PorterDuffColorFilter;
 import android.graphics.Rect;
 import android.graphics.Shader;
 import android.graphics.Typeface;
-import android.os.Handler;
-import android.os.Message;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewOutlineProvider;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -44,29 +47,44 @@ import java.util.List;
 public class ProfileImageView extends View {
 
     // Conts
-    final private static float DEFAULT_BORDER_RADIUS = 4.0f;
-    final private static int DEFAULT_BORDER_COLOR = Color.WHITE;
-    final private static int DEFAULT_BACKGROUND_COLOR = Color.WHITE;
-    final private static int DEFAULT_SHADOW_COLOR = Color.rgb(0, 0, 0);
-    final private static int DEFAULT_FEATURE_COLOR = 0xFF58B094;
-    final private static int DEFAULT_SELECTABLE_COLOR = 0xFF58B094;
-    final private static int DEFAULT_FEATURE_MULTIPLY_SHADOW_COLOR = 140;
+    final static float DEFAULT_BORDER_RADIUS = 4.0f; /** dp */
+    final static int DEFAULT_BORDER_COLOR = Color.WHITE;
+    final static int DEFAULT_BACKGROUND_COLOR = Color.WHITE;
+    final static int DEFAULT_SHADOW_COLOR = Color.BLACK;
+    final static int DEFAULT_FEATURE_COLOR = 0xFF58B094;
+    final static int DEFAULT_SELECTABLE_COLOR = 0xFF58B094;
+    final static int DEFAULT_FEATURE_MULTIPLY_SHADOW_COLOR = 140;
     final private static int DEFAULT_SELECTABLE_MULTIPLY_SHADOW_COLOR = 50;
     final private static int DEFAULT_FEATURE_SHADOW_COLOR = Color.argb(35, 0, 0, 0);
     final private static float DEFAULT_MAX_CLICK_DISTANCE = 10;
+    final private static float DEFAULT_SHADOW_ELEVATION = 2.0f;
+    final static float DEFAULT_SHADOW_BLUR = 4.0f;
+    final static float DEFAULT_SHADOW_OFFSET_Y = 2.0f;
 
 
     // Do not change
-    final private static float COS45 = (float) Math.cos(Math.PI / 4.0f);
+    final private static float COS45 = 0.70710677f; /** cos(45º), a constant so the Frame shapes do not load the view class */
+    final static float BLUR_SIGMA_SCALE = 0.57735f;
     final private static int SIMULATE_SHADOW_COLOR = Color.argb(50, 0, 0, 0);
-    final private static int FEATURE_ANIMATION_START = 0;
-    final private static int FEATURE_ANIMATION_END = 1;
-    final private static int FEATURE_ANIMATION_NULL = 2;
+    final private static int FEATURE_ANIMATION_START = ProfileImageViewAnimation.MODE_START;
+    final private static int FEATURE_ANIMATION_END = ProfileImageViewAnimation.MODE_END;
+    final private static int FEATURE_ANIMATION_NULL = ProfileImageViewAnimation.MODE_NULL;
     final private static int FEATURE_ANIMATION_DURATION = 100; /** ms */
+    final private static int FRAME_PATH_CACHE_SIZE = 4;
+    final private static int FEATURE_ANIMATION_GRAY = 20;
+    final private static int REFRESH_NONE = 0;
+    final private static int REFRESH_DRAW = 1; /** Invalidate */
+    final private static int REFRESH_GEOMETRY = 2; /** Rebuild the laid out state and invalidate */
+    final private static int REFRESH_MEASURE = 3; /** Request layout and invalidate */
+
+    // Shared Color Filters (Indexed by gray level)
+    final private static PorterDuffColorFilter[] sGrayMultiplyFilters = new PorterDuffColorFilter[256];
+    private static PorterDuffColorFilter sFeatureShadowFilter;
 
     // Private Variables
     private boolean mBorder;
     private boolean mShadow;
+    private boolean mOutlineShadow;
     private Mode mMode = Mode.PORTRAIT;
     private ScaleMode mScaleMode = ScaleMode.FIT;
     private Theme mTheme;
@@ -83,14 +101,42 @@ public class ProfileImageView extends View {
     private Paint mBorderPaint;
     private Paint mPhotoPaint;
     private Paint mFeaturePaint;
+    private Paint mShadowPaint;
+    private Bitmap mShadowBitmap;
+    private PorterDuffColorFilter mFeatureColorFilter;
+    private int mFeatureColorFilterColor;
     private Rect[] mFeatureRect = {new Rect(), new Rect()};
     private boolean mPressed;
     private float[] mPressedPosition = new float[2];
-    private int mFeatureAnimationMode = FEATURE_ANIMATION_NULL;
-    private long mFeatureAnimationStartTime = 0;
-    private Handler mHandler;
+    private ProfileImageViewAnimation mFeatureAnimation = new ProfileImageViewAnimation(ProfileImageViewAnimation.SYSTEM_CLOCK, FEATURE_ANIMATION_DURATION);
     private int mLastImageRes;
     private int mLastFeatureIconRes;
+    private int mPendingImageRes = -1;
+    private int mPendingFeatureIconRes = -1;
+    private int mImageDecodeSize;
+    private int mFeatureIconDecodeSize;
+    private boolean mAsyncLoading;
+    private ProfileImageViewLoader.Request mImageRequest;
+    private ProfileImageViewLoader.Request mFeatureIconRequest;
+    private Runnable mUpsizeResources;
+    private Path[] mFramePaths = new Path[FRAME_PATH_CACHE_SIZE];
+    private float[] mFramePathKeys = new float[FRAME_PATH_CACHE_SIZE * 3];
+    private int mFramePathCount;
+    private Path mOutlinePath;
+    private boolean mRenderCache;
+    private Bitmap mRenderBitmap;
+    private ProfileImageViewRenderCache.Renderer mRenderer;
+    private String mFeatureTextFitted;
+    private float[] mFeatureTextKeys = new float[5];
+    private int mFeatureTextX;
+    private int mFeatureTextY;
+    private int mEditDepth;
+    private int mPendingRefresh = REFRESH_NONE;
+    private Editor mEditor;
+    private Matrix mShaderMatrix = new Matrix();
+    private float[] mShaderTransform = new float[3];
+    private boolean mShaderMatrixDirty = true;
+    private int[] mLayoutKeys = new int[6];
 
     /**
      * Constructor
@@ -134,6 +180,8 @@ public class ProfileImageView extends View {
         // Uses
         TypedArray attributes = context.obtainStyledAttributes(attrs, R.styleable.ProfileImageView, defStyle, 0);
         mDensity = context.getResources().getDisplayMetrics().density;
+        if(!isInEditMode())
+            ProfileImageViewMemoryManager.getInstance().register(context);
 
         // Get functions
         boolean border = attributes.getBoolean(R.styleable.ProfileImageView_border, false);
@@ -147,14 +195,18 @@ public class ProfileImageView extends View {
         mBorderPaint = new Paint();
         mPhotoPaint = new Paint();
         mFeaturePaint = new Paint();
+        mShadowPaint = new Paint();
         mBackgroundPaint.setAntiAlias(true);
         mBorderPaint.setAntiAlias(true);
         mPhotoPaint.setAntiAlias(true);
         mFeaturePaint.setAntiAlias(false);
         mFeaturePaint.setFilterBitmap(false);
         mFeaturePaint.setDither(false);
+        mShadowPaint.setFilterBitmap(true);
 
         // Set Photo and Feature Compose
+        setAsyncLoading(attributes.getBoolean(R.styleable.ProfileImageView_asyncLoading, false));
+        setRenderCacheEnabled(attributes.getBoolean(R.styleable.ProfileImageView_renderCache, false));
         final int photoRes = attributes.getResourceId(R.styleable.ProfileImageView_image, -1);
         final int featureIconRes = attributes.getResourceId(R.styleable.ProfileImageView_featureIcon, -1);
         final String featureText = attributes.getString(R.styleable.ProfileImageView_featureText);
@@ -186,9 +238,6 @@ public class ProfileImageView extends View {
 
         // We no longer need our attributes TypedArray, give it back to cache
         attributes.recycle();
-
-        //
-        mHandler = new FeatureAnimationHandler();
     }
 
     /**
@@ -202,7 +251,8 @@ public class ProfileImageView extends View {
                 text != null && text.equals(mFeatureText))
             return;
         mFeatureText = text;
-        invalidate();
+        mFeatureTextFitted = null;
+        requestRefresh(REFRESH_DRAW);
     }
 
     /**
@@ -215,11 +265,67 @@ public class ProfileImageView extends View {
             throw new ProfileImageViewException("Not permitted value, use -1 to null or above -1 to the desired resource.");
         // Recycle
         recycleImage();
+        mPendingImageRes = -1;
+        // Resolve Resource
+        final int decodeSize = helperGetDecodeSize(getMeasuredWidth(), getMeasuredHeight());
+        if(resId != -1 && decodeSize <= 0) {
+            // Not measured yet, decode in onMeasure at the displayed size
+            mImage = null;
+            mPhotoPaint.setShader(null);
+            mPendingImageRes = resId;
+            mLastImageRes = resId;
+        } else
+            loadImageFromResource(resId, decodeSize);
+        // Refresh layout and draw
+        requestRefresh(REFRESH_MEASURE);
+    }
+
+    /**
+     * Load Image from Resource
+     *
+     * @param resId -1 to null
+     * @param decodeSize Displayed size in pixels, 0 to decode at full resolution
+     */
+    private void loadImageFromResource(final int resId, final int decodeSize) {
+        mImageDecodeSize = decodeSize;
         // Resolve Resource
+        if(resId != -1 && helperUseAsyncLoading()) {
+            // Prefetched images are used right away
+            final Bitmap cached = ProfileImageViewBitmapCache.getInstance().acquireCached(resId, decodeSize);
+            if(cached != null) {
+                setLoadedImage(resId, cached);
+                return;
+            }
+            // Background color is drawn until the image arrives
+            mImage = null;
+            mPhotoPaint.setShader(null);
+            mLastImageRes = resId;
+            mImageRequest = ProfileImageViewLoader.load(getResources(), resId, decodeSize, new ProfileImageViewLoader.Callback() {
+                @Override
+                public void onLoaded(final Bitmap bitmap) {
+                    mImageRequest = null;
+                    setLoadedImage(resId, bitmap);
+                    requestRefresh(REFRESH_MEASURE);
+                }
+            });
+            return;
+        }
         if(resId == -1)
             mImage = null;
         else
-            mImage = ProfileImageViewUtils.decodeFromResource(getResources(), resId);
+            mImage = ProfileImageViewBitmapCache.getInstance().acquire(getResources(), resId, decodeSize);
+        setLoadedImage(resId, mImage);
+    }
+
+    /**
+     * Set Loaded Image
+     *
+     * @param resId
+     * @param bitmap
+     */
+    private void setLoadedImage(final int resId, final Bitmap bitmap) {
+        mImage = bitmap;
+        mRenderBitmap = null;
         // Set Shader
         if (mImage != null)
             mPhotoPaint.setShader(new BitmapShader(mImage, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
@@ -229,9 +335,6 @@ public class ProfileImageView extends View {
         addRecyclableObject(mImage);
         //
         mLastImageRes = mImage == null ? -1 : resId;
-        // Refresh layout and draw
-        requestLayout();
-        invalidate();
     }
 
     /**
@@ -240,10 +343,14 @@ public class ProfileImageView extends View {
      * @param bitmap To remove image use null
      */
     public void setImage(final Bitmap bitmap) {
+        // Measured from the image size
+        final boolean measure = !helperSameSize(mImage, bitmap);
         // Recycle
         recycleImage();
+        mPendingImageRes = -1;
         // Set Image
         mImage = bitmap;
+        mRenderBitmap = null;
         // Set Shader
         if (mImage != null)
             mPhotoPaint.setShader(new BitmapShader(mImage, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
@@ -252,8 +359,7 @@ public class ProfileImageView extends View {
         //
         mLastImageRes = -1;
         // Refresh layout and draw
-        requestLayout();
-        invalidate();
+        requestRefresh(measure ? REFRESH_MEASURE : REFRESH_GEOMETRY);
     }
 
     /**
@@ -266,17 +372,91 @@ public class ProfileImageView extends View {
             throw new ProfileImageViewException("Not permitted value, use -1 to null or above -1 to the desired resource.");
         // Recycle
         recycleFeatureIcon();
+        mPendingFeatureIconRes = -1;
+        // Resolve resource
+        final int decodeSize = helperGetDecodeSize(getMeasuredWidth(), getMeasuredHeight());
+        if(resId != -1 && decodeSize <= 0) {
+            // Not measured yet, decode in onMeasure at the displayed size
+            mFeatureIcon = null;
+            mPendingFeatureIconRes = resId;
+            mLastFeatureIconRes = resId;
+            requestRefresh(REFRESH_MEASURE);
+        } else
+            loadFeatureIconFromResource(resId, decodeSize);
+        // Draw
+        requestRefresh(REFRESH_DRAW);
+    }
+
+    /**
+     * Load Feature Icon from Resource
+     *
+     * @param resId -1 to null
+     * @param decodeSize Displayed size in pixels, 0 to decode at full resolution
+     */
+    private void loadFeatureIconFromResource(final int resId, final int decodeSize) {
+        mFeatureIconDecodeSize = decodeSize;
         // Resolve resource
+        if(resId != -1 && helperUseAsyncLoading()) {
+            final Bitmap cached = ProfileImageViewBitmapCache.getInstance().acquireCached(resId, decodeSize);
+            if(cached != null) {
+                setLoadedFeatureIcon(resId, cached);
+                return;
+            }
+            mFeatureIcon = null;
+            mLastFeatureIconRes = resId;
+            mFeatureIconRequest = ProfileImageViewLoader.load(getResources(), resId, decodeSize, new ProfileImageViewLoader.Callback() {
+                @Override
+                public void onLoaded(final Bitmap bitmap) {
+                    mFeatureIconRequest = null;
+                    setLoadedFeatureIcon(resId, bitmap);
+                    requestRefresh(REFRESH_DRAW);
+                }
+            });
+            return;
+        }
         if(resId == -1)
             mFeatureIcon = null;
         else
-            mFeatureIcon = ProfileImageViewUtils.decodeFromResource(getResources(), resId);
+            mFeatureIcon = ProfileImageViewBitmapCache.getInstance().acquire(getResources(), resId, decodeSize);
+        setLoadedFeatureIcon(resId, mFeatureIcon);
+    }
+
+    /**
+     * Set Loaded Feature Icon
+     *
+     * @param resId
+     * @param bitmap
+     */
+    private void setLoadedFeatureIcon(final int resId, final Bitmap bitmap) {
+        mFeatureIcon = bitmap;
         // Add to recyclable objects
         addRecyclableObject(mFeatureIcon);
         //
         mLastFeatureIconRes = mFeatureIcon == null ? -1 : resId;
-        // Draw
-        invalidate();
+    }
+
+    /**
+     * Load Pending Resources<br>
+     *     Resources set before the first measure are decoded once a size is known, at the displayed
+     *     size.
+     *
+     * @param decodeSize Displayed size in pixels, 0 to decode at full resolution
+     * @return True if a resource was pending
+     */
+    private boolean loadPendingResources(final int decodeSize) {
+        if(mPendingImageRes == -1 && mPendingFeatureIconRes == -1)
+            return false;
+        if(mPendingImageRes != -1) {
+            final int resId = mPendingImageRes;
+            mPendingImageRes = -1;
+            loadImageFromResource(resId, decodeSize);
+        }
+        if(mPendingFeatureIconRes != -1) {
+            final int resId = mPendingFeatureIconRes;
+            mPendingFeatureIconRes = -1;
+            loadFeatureIconFromResource(resId, decodeSize);
+        }
+        return true;
     }
 
     /**
@@ -287,22 +467,114 @@ public class ProfileImageView extends View {
     public void setFeatureIcon(final Bitmap icon) {
         // Recycle
         recycleFeatureIcon();
+        mPendingFeatureIconRes = -1;
         // Set icon
         mFeatureIcon = icon;
         //
         mLastFeatureIconRes = -1;
         // Draw
-        invalidate();
+        requestRefresh(REFRESH_DRAW);
+    }
+
+    /**
+     * Set Async Loading<br>
+     *     When enabled, resources are decoded in background and the background color is drawn
+     *     until they arrive. Pending loads are cancelled when the view is rebound or detached.
+     *
+     * @param asyncLoading
+     */
+    public void setAsyncLoading(final boolean asyncLoading) {
+        mAsyncLoading = asyncLoading;
+    }
+
+    /**
+     * Is Async Loading
+     *
+     * @return
+     */
+    public boolean isAsyncLoading() {
+        return mAsyncLoading;
+    }
+
+    /**
+     * Set Render Cache Enabled<br>
+     *     PORTRAIT avatars are drawn once in a bitmap shared by identical views through
+     *     {@link ProfileImageViewRenderCache}, then only blitted. Uses more memory, best for lists
+     *     that repeat the same images.
+     *
+     * @param renderCache
+     */
+    public void setRenderCacheEnabled(final boolean renderCache) {
+        if(mRenderCache == renderCache)
+            return;
+        mRenderCache = renderCache;
+        mRenderBitmap = null;
+        requestRefresh(REFRESH_DRAW);
+    }
+
+    /**
+     * Is Render Cache Enabled
+     *
+     * @return
+     */
+    public boolean isRenderCacheEnabled() {
+        return mRenderCache;
+    }
+
+    /**
+     * Helper - Use render cache
+     *
+     * @return
+     */
+    private boolean helperUseRenderCache() {
+        return mRenderCache && mMode == Mode.PORTRAIT && (mImageRequest == null || mImage != null) && !isInEditMode();
+    }
+
+    /**
+     * Get Render Image
+     *
+     * @return
+     */
+    Bitmap getRenderImage() {
+        return mImage;
+    }
+
+    /**
+     * Get Render State<br>
+     *     Flags that change the composited avatar besides image, frame, theme and size.
+     *
+     * @return
+     */
+    int getRenderState() {
+        int state = mMode.ordinal();
+        state = state * 4 + mScaleMode.ordinal();
+        state = state * 2 + (mBorder ? 1 : 0);
+        state = state * 2 + (mShadow && !mOutlineShadow ? 1 : 0);
+        return state;
+    }
+
+    /**
+     * Helper - Use async loading
+     *
+     * @return
+     */
+    private boolean helperUseAsyncLoading() {
+        return mAsyncLoading && !isInEditMode();
     }
 
     /**
      * Recycle Image
      */
     private void recycleImage() {
+        if(mImageRequest != null) {
+            mImageRequest.cancel();
+            mImageRequest = null;
+        }
         if(mImage != null && mLastImageRes != -1) {
-            if(removeRecyclableObject(mImage) && !mImage.isRecycled())
-                mImage.recycle();
+            if(removeRecyclableObject(mImage))
+                ProfileImageViewBitmapCache.getInstance().release(mImage);
             mImage = null;
+            mRenderBitmap = null;
         }
     }
 
@@ -310,9 +582,13 @@ public class ProfileImageView extends View {
      * Recycle Feature Icon
      */
     private void recycleFeatureIcon() {
-        if(mFeatureIcon != null && mLastImageRes != -1) {
-            if(removeRecyclableObject(mFeatureIcon) && !mFeatureIcon.isRecycled())
-                mFeatureIcon.recycle();
+        if(mFeatureIconRequest != null) {
+            mFeatureIconRequest.cancel();
+            mFeatureIconRequest = null;
+        }
+        if(mFeatureIcon != null && mLastFeatureIconRes != -1) {
+            if(removeRecyclableObject(mFeatureIcon))
+                ProfileImageViewBitmapCache.getInstance().release(mFeatureIcon);
             mFeatureIcon = null;
         }
     }
@@ -345,21 +621,20 @@ public class ProfileImageView extends View {
     }
 
     /**
-     * Remove recyclable object
+     * Remove recyclable object<br>
+     *     Removes one reference, the image and the feature icon may share the same cached bitmap.
      */
     private boolean removeRecyclableObject(final Object object) {
         if(object == null)
             return false;
         final Iterator<Object> itr = mSingleReferences.iterator();
-        boolean result = false;
         while(itr.hasNext()) {
-            final Object itrObject = itr.next();
-            if(itrObject == object) {
+            if(itr.next() == object) {
                 itr.remove();
-                result = true;
+                return true;
             }
         }
-        return result;
+        return false;
     }
 
     /**
@@ -370,9 +645,16 @@ public class ProfileImageView extends View {
     public void setFrame(final Frame frame) {
         if(frame == null)
             throw new ProfileImageViewException("Set a valid way.");
+        // Sealed frames are shared, binding the same one again changes nothing
+        if(frame == mFrame)
+            return;
         mFrame = frame.clone();
-        requestLayout();
-        invalidate();
+        mFeatureTextFitted = null;
+        invalidateFramePaths();
+        mShadowBitmap = null;
+        mRenderBitmap = null;
+        refreshShadow();
+        requestRefresh(REFRESH_GEOMETRY);
     }
 
     /**
@@ -392,8 +674,8 @@ public class ProfileImageView extends View {
         if(mBorder == border)
             return;
         mBorder = border;
-        requestLayout();
-        invalidate();
+        mRenderBitmap = null;
+        requestRefresh(REFRESH_GEOMETRY);
     }
 
     /**
@@ -414,12 +696,32 @@ public class ProfileImageView extends View {
         if(mShadow == shadow)
             return;
         mShadow = shadow;
-        if(mShadow)
-            setLayerType(View.LAYER_TYPE_SOFTWARE, null);
-        else
-            setLayerType(View.LAYER_TYPE_HARDWARE, null);
-        requestLayout();
-        invalidate();
+        mShadowBitmap = null;
+        mRenderBitmap = null;
+        refreshShadow();
+        requestRefresh(REFRESH_GEOMETRY);
+    }
+
+    /**
+     * Refresh Shadow<br>
+     *     Convex frames on Lollipop and above cast the shadow through the view outline. Otherwise the
+     *     shadow is a blurred bitmap shared through {@link ProfileImageViewShadowCache}, so the view
+     *     stays hardware accelerated in both cases.
+     */
+    private void refreshShadow() {
+        final boolean outlineShadow = mShadow && !isInEditMode() &&
+                ProfileImageViewUtils.isOutlineShadow(mFrame, Build.VERSION.SDK_INT);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            if(outlineShadow) {
+                if(!mOutlineShadow)
+                    FrameOutlineProvider.attach(this);
+                invalidateOutline();
+            } else if(mOutlineShadow)
+                FrameOutlineProvider.detach(this);
+        }
+        if(mOutlineShadow != outlineShadow)
+            mRenderBitmap = null;
+        mOutlineShadow = outlineShadow;
     }
 
     /**
@@ -442,7 +744,8 @@ public class ProfileImageView extends View {
         if(mode == null)
             throw new ProfileImageViewException("Set a valid mode.");
         mMode = mode;
-        invalidate();
+        mRenderBitmap = null;
+        requestRefresh(REFRESH_DRAW);
     }
 
     /**
@@ -465,8 +768,8 @@ public class ProfileImageView extends View {
         if(mode == null)
             throw new ProfileImageViewException("Set a valid mode.");
         mScaleMode = mode;
-        requestLayout();
-        invalidate();
+        mRenderBitmap = null;
+        requestRefresh(REFRESH_GEOMETRY);
     }
 
     /**
@@ -487,8 +790,11 @@ public class ProfileImageView extends View {
         if(theme == null)
             throw new ProfileImageViewException("Set a valid theme.");
         mTheme = theme.clone();
+        mShadowBitmap = null;
+        mRenderBitmap = null;
         refreshTheme();
-        invalidate();
+        if(mOutlineShadow && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)
+            invalidateOutline();
     }
 
 
@@ -501,6 +807,21 @@ public class ProfileImageView extends View {
         return mTheme.clone();
     }
 
+    /**
+     * Edit<br>
+     *     Batches changes, eg: to bind a list item. Only values that differ from the current ones are
+     *     applied and the view refreshes once: a layout is requested only if the image size changed,
+     *     otherwise it is just invalidated. The editor is reused by the view.
+     *
+     * @return
+     */
+    public Editor edit() {
+        if(mEditor == null)
+            mEditor = new Editor();
+        mEditor.clear();
+        return mEditor;
+    }
+
     /**
      * Refresh Theme
      */
@@ -508,8 +829,13 @@ public class ProfileImageView extends View {
         mPhotoPaint.setColor(Color.RED);
         mFeaturePaint.setTextSize(mDensity * 22.0f);
         mFeaturePaint.setTypeface(Typeface.SANS_SERIF);
-        requestLayout();
-        invalidate();
+        mFeatureTextFitted = null;
+        if(mFeatureColorFilter == null || mFeatureColorFilterColor != mTheme.featureColor) {
+            mFeatureColorFilter = new PorterDuffColorFilter(mTheme.featureColor, PorterDuff.Mode.MULTIPLY);
+            mFeatureColorFilterColor = mTheme.featureColor;
+            ProfileImageViewMetrics.getInstance().count(ProfileImageViewMetrics.COUNTER_COLOR_FILTERS_CREATED);
+        }
+        requestRefresh(REFRESH_GEOMETRY);
     }
 
     /**
@@ -520,6 +846,12 @@ public class ProfileImageView extends View {
      */
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        // Unknown sizes keep the resources pending, eg: the first pass of an unconstrained parent
+        final int decodeSize = helperGetDecodeSize(
+                MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED ? 0 : MeasureSpec.getSize(widthMeasureSpec),
+                MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.UNSPECIFIED ? 0 : MeasureSpec.getSize(heightMeasureSpec));
+        if(decodeSize > 0)
+            loadPendingResources(decodeSize);
         int width = 0;
         int height = 0;
         if(mImage != null) {
@@ -532,6 +864,116 @@ public class ProfileImageView extends View {
         setMeasuredDimension(width, height);
     }
 
+    /**
+     * On Size Changed<br>
+     *     Resources decoded for a smaller size are decoded again after the layout pass.
+     *
+     * @param w
+     * @param h
+     * @param oldw
+     * @param oldh
+     */
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if(helperNeedsUpsize(w, h))
+            postUpsizeResources();
+    }
+
+    /**
+     * Post upsize resources<br>
+     *     Runs after the layout pass, so decoding never requests a layout from inside one.
+     */
+    private void postUpsizeResources() {
+        if(mUpsizeResources == null) {
+            mUpsizeResources = new Runnable() {
+                @Override
+                public void run() {
+                    upsizeResources();
+                }
+            };
+        }
+        removeCallbacks(mUpsizeResources);
+        post(mUpsizeResources);
+    }
+
+    /**
+     * Helper - Needs upsize
+     *
+     * @param width
+     * @param height
+     * @return True if a resource was decoded for a smaller size
+     */
+    private boolean helperNeedsUpsize(final int width, final int height) {
+        final int decodeSize = helperGetDecodeSize(width, height);
+        return (mImage != null && mLastImageRes != -1 && mImageDecodeSize > 0 && decodeSize > mImageDecodeSize)
+                || (mFeatureIcon != null && mLastFeatureIconRes != -1 && mFeatureIconDecodeSize > 0 && decodeSize > mFeatureIconDecodeSize);
+    }
+
+    /**
+     * Upsize resources<br>
+     *     The current bitmaps are drawn until the larger ones are decoded. Resources still pending
+     *     after the layout pass are decoded at the laid out size, or at full resolution when the
+     *     view is only sized by its image.
+     */
+    private void upsizeResources() {
+        final int decodeSize = helperGetDecodeSize(getWidth(), getHeight());
+        if(loadPendingResources(decodeSize))
+            requestRefresh(REFRESH_MEASURE);
+        if(mImage != null && mLastImageRes != -1 && mImageDecodeSize > 0 && decodeSize > mImageDecodeSize) {
+            if(helperUseAsyncLoading()) {
+                final int resId = mLastImageRes;
+                if(mImageRequest != null)
+                    mImageRequest.cancel();
+                mImageRequest = ProfileImageViewLoader.load(getResources(), resId, decodeSize, new ProfileImageViewLoader.Callback() {
+                    @Override
+                    public void onLoaded(final Bitmap bitmap) {
+                        mImageRequest = null;
+                        if(bitmap == null)
+                            return;
+                        recycleImage();
+                        mImageDecodeSize = decodeSize;
+                        setLoadedImage(resId, bitmap);
+                        requestRefresh(REFRESH_MEASURE);
+                    }
+                });
+            } else
+                setImageFromResource(mLastImageRes);
+        }
+        if(mFeatureIcon != null && mLastFeatureIconRes != -1 && mFeatureIconDecodeSize > 0 && decodeSize > mFeatureIconDecodeSize) {
+            if(helperUseAsyncLoading()) {
+                final int resId = mLastFeatureIconRes;
+                if(mFeatureIconRequest != null)
+                    mFeatureIconRequest.cancel();
+                mFeatureIconRequest = ProfileImageViewLoader.load(getResources(), resId, decodeSize, new ProfileImageViewLoader.Callback() {
+                    @Override
+                    public void onLoaded(final Bitmap bitmap) {
+                        mFeatureIconRequest = null;
+                        if(bitmap == null)
+                            return;
+                        recycleFeatureIcon();
+                        mFeatureIconDecodeSize = decodeSize;
+                        setLoadedFeatureIcon(resId, bitmap);
+                        requestRefresh(REFRESH_DRAW);
+                    }
+                });
+            } else
+                setFeatureIconFromResource(mLastFeatureIconRes);
+        }
+    }
+
+    /**
+     * Helper - Get decode size
+     *
+     * @param width View width, 0 if unknown
+     * @param height View height, 0 if unknown
+     * @return Displayed image size in pixels, 0 if both are unknown
+     */
+    private int helperGetDecodeSize(final int width, final int height) {
+        return ProfileImageViewUtils.calculateDecodeSize(width - getPaddingLeft() - getPaddingRight(),
+                height - getPaddingTop() - getPaddingBottom(), mTheme);
+    }
+
     /**
      * Helper - Get border Radius
      * @return
@@ -549,7 +991,7 @@ public class ProfileImageView extends View {
     private float helperGetShadowRadius() {
         if(!mShadow)
             return 0.0f;
-        return 2.0f * mDensity;
+        return ProfileImageViewUtils.calculateShadowRadius(mDensity);
     }
 
     /**
@@ -564,38 +1006,121 @@ public class ProfileImageView extends View {
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
         super.onLayout(changed, left, top, right, bottom);
-        //
-        if(mImage != null) {
+        if(mPendingImageRes != -1 || mPendingFeatureIconRes != -1)
+            postUpsizeResources();
+        final ProfileImageViewMetrics metrics = ProfileImageViewMetrics.getInstance();
+        final long start = metrics.begin(ProfileImageViewMetrics.TIMER_LAYOUT);
+        refreshGeometry(right - left, bottom - top);
+        metrics.end(this, ProfileImageViewMetrics.TIMER_LAYOUT, start);
+    }
+
+    /**
+     * Refresh Geometry<br>
+     *     Rebuilds what depends on the laid out size: frame paths, shadow and shader matrix. The
+     *     setters reset what depends on their own inputs.
+     *
+     * @param width
+     * @param height
+     */
+    private void refreshGeometry(final int width, final int height) {
+        if(helperLayoutChanged(width, height)) {
+            invalidateFramePaths();
+            mShadowBitmap = null;
+            mRenderBitmap = null;
+            mShaderMatrixDirty = true;
+        }
+        if(mImage != null && mTheme != null && width > 0 && height > 0) {
             Shader shader = mPhotoPaint.getShader();
             if (shader != null) {
-                final float ms1 = helperGetBorderRadius() + helperGetShadowRadius();
-                final float ms2 = ms1 * 2;
-                final float width = (right - left) - ms2 - getPaddingLeft() - getPaddingRight();
-                final float height = (bottom - top) - ms2 - getPaddingBottom() - getPaddingTop();
-                final float size = Math.min(width, height) - helperGetShadowRadius() * 2;
-                final float scaleImage = (size * 1.0f) / (mImage.getWidth()-2);
-                float scaleContent = mTheme.imageScale;
-                //
-                Matrix shaderMatrix = new Matrix();
-                switch(mScaleMode) {
-                    case CENTER:
-                        scaleContent *= mFrame.getCenterSquareScale();
-                    case FIT:
-                        final float finalScale = scaleImage * scaleContent;
-                        float c = Math.abs((size * scaleContent - size) / 2);//
-                        if(scaleContent < 1.0f)
-                            c = 0;
-                        final float imageSize = size * scaleContent;
-                        final float imageScrollX = Math.max(Math.min(mTheme.imageScrollX * c, c), -c) + (width - imageSize) / 2 + getPaddingLeft() - finalScale;
-                        final float imageScrollY = Math.max(Math.min(mTheme.imageScrollY * c, c), -c) + (height - imageSize) / 2 + getPaddingTop() - helperGetShadowRadius() - finalScale;
-                        shaderMatrix.preTranslate(imageScrollX + ms1, imageScrollY + ms1);
-                        shaderMatrix.preScale(finalScale, finalScale);
+                final ProfileImageViewMetrics metrics = ProfileImageViewMetrics.getInstance();
+                if(!mShaderMatrixDirty) {
+                    metrics.count(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_SKIPPED);
+                    return;
                 }
-                shader.setLocalMatrix(shaderMatrix);
+                final float[] transform = mShaderTransform;
+                ProfileImageViewUtils.calculateImageTransform(width, height, getPaddingLeft(), getPaddingTop(),
+                        getPaddingRight(), getPaddingBottom(), helperGetBorderRadius(), helperGetShadowRadius(),
+                        mImage.getWidth(), mTheme, mScaleMode, mFrame.getCenterSquareScale(), transform);
+                mShaderMatrix.setTranslate(transform[0], transform[1]);
+                mShaderMatrix.preScale(transform[2], transform[2]);
+                shader.setLocalMatrix(mShaderMatrix);
+                mShaderMatrixDirty = false;
+                metrics.count(ProfileImageViewMetrics.COUNTER_SHADER_MATRIX_RECOMPUTED);
             }
         }
     }
 
+    /**
+     * Helper - Layout changed<br>
+     *     The view owned inputs (image, theme, frame, scale mode, border and shadow) mark the shader
+     *     matrix dirty through {@link #requestRefresh(int)}, the laid out size and padding are
+     *     compared here.
+     *
+     * @param width
+     * @param height
+     * @return
+     */
+    private boolean helperLayoutChanged(final int width, final int height) {
+        final int[] keys = mLayoutKeys;
+        final int paddingLeft = getPaddingLeft();
+        final int paddingTop = getPaddingTop();
+        final int paddingRight = getPaddingRight();
+        final int paddingBottom = getPaddingBottom();
+        if(keys[0] == width && keys[1] == height && keys[2] == paddingLeft
+                && keys[3] == paddingTop && keys[4] == paddingRight && keys[5] == paddingBottom)
+            return false;
+        keys[0] = width;
+        keys[1] = height;
+        keys[2] = paddingLeft;
+        keys[3] = paddingTop;
+        keys[4] = paddingRight;
+        keys[5] = paddingBottom;
+        return true;
+    }
+
+    /**
+     * Request Refresh<br>
+     *     Deferred to {@link Editor#apply()} while editing, so a batch of changes refreshes once.
+     *
+     * @param refresh One of REFRESH_
+     */
+    private void requestRefresh(final int refresh) {
+        // Geometry refreshes come from the inputs of the shader matrix
+        if(refresh >= REFRESH_GEOMETRY)
+            mShaderMatrixDirty = true;
+        if(mEditDepth > 0) {
+            mPendingRefresh = Math.max(mPendingRefresh, refresh);
+            return;
+        }
+        switch(refresh) {
+            case REFRESH_MEASURE:
+                // onLayout refreshes the geometry
+                requestLayout();
+                invalidate();
+                break;
+            case REFRESH_GEOMETRY:
+                refreshGeometry(getWidth(), getHeight());
+                invalidate();
+                break;
+            case REFRESH_DRAW:
+                invalidate();
+                break;
+        }
+    }
+
+    /**
+     * Helper - Same size
+     *
+     * @param a
+     * @param b
+     * @return True if both are null or have the same size
+     */
+    private static boolean helperSameSize(final Bitmap a, final Bitmap b) {
+        if(a == null || b == null)
+            return a == b;
+        return a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight();
+    }
+
     /**
      * On Touch
      *
@@ -667,18 +1192,12 @@ public class ProfileImageView extends View {
      * @param mode
      */
     private void startFeatureAnimation(final int mode) {
-        if(mFeatureAnimationMode == mode)
+        if(mode == FEATURE_ANIMATION_NULL) {
+            mFeatureAnimation.stop();
             return;
-        mFeatureAnimationMode = mode;
-        switch (mode) {
-            case FEATURE_ANIMATION_START:
-            case FEATURE_ANIMATION_END:
-                mFeatureAnimationStartTime = System.currentTimeMillis();
-                updateFeatureAnimation();
-                break;
-            case FEATURE_ANIMATION_NULL:
-                mHandler.removeCallbacksAndMessages(null);
         }
+        if(mFeatureAnimation.start(mode))
+            updateFeatureAnimation();
     }
 
     /**
@@ -687,35 +1206,35 @@ public class ProfileImageView extends View {
      * @return
      */
     private float getAnimationFrame(final float from, final float to) {
-        final float frame = Math.min(((System.currentTimeMillis() - mFeatureAnimationStartTime) * 1.0f) / FEATURE_ANIMATION_DURATION, 1.0f);
-        switch (mFeatureAnimationMode) {
-            case FEATURE_ANIMATION_START:
-                return (1.0f - frame) * from + frame * to;
-            default:
-            case FEATURE_ANIMATION_END:
-                return (1.0f - frame) * to + frame * from;
-        }
+        return mFeatureAnimation.getFrame(from, to);
+    }
+
+    /**
+     * Update Feature Animation<br>
+     *     Schedules the next frame on the display vsync while the animation is running.
+     */
+    private void updateFeatureAnimation() {
+        if(mMode != Mode.PORTRAIT)
+            postInvalidateOnAnimation();
     }
 
     /**
-     * Return true if has animation
+     * Set Animation Clock<br>
+     *     Used to drive the feature animation with a deterministic time base.
      *
-     * @return
+     * @param clock
      */
-    private boolean hasAnimation() {
-        return (mFeatureAnimationMode == FEATURE_ANIMATION_START ||
-                mFeatureAnimationMode == FEATURE_ANIMATION_END);
+    void setAnimationClock(final ProfileImageViewAnimation.Clock clock) {
+        mFeatureAnimation.setClock(clock);
     }
 
     /**
-     * Update Feature Animation
+     * Get fitted feature text
+     *
+     * @return Text drawn by the last draw, null until the next draw after a change
      */
-    private void updateFeatureAnimation() {
-        final long time = System.currentTimeMillis() - mFeatureAnimationStartTime;
-        if(time <= FEATURE_ANIMATION_DURATION) {
-            mHandler.sendEmptyMessage(0);
-        }
-        invalidate();
+    String getFittedFeatureText() {
+        return mFeatureTextFitted;
     }
 
     /**
@@ -733,6 +1252,8 @@ public class ProfileImageView extends View {
      */
     @Override
     protected void onDetachedFromWindow() {
+        if(mUpsizeResources != null)
+            removeCallbacks(mUpsizeResources);
         recycleImage();
         recycleFeatureIcon();
         startFeatureAnimation(FEATURE_ANIMATION_NULL);
@@ -747,6 +1268,39 @@ public class ProfileImageView extends View {
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        final ProfileImageViewMetrics metrics = ProfileImageViewMetrics.getInstance();
+        final long start = metrics.begin(ProfileImageViewMetrics.TIMER_DRAW);
+        // Draw once, blit many
+        if(helperUseRenderCache()) {
+            if(mRenderBitmap == null) {
+                if(mRenderer == null) {
+                    mRenderer = new ProfileImageViewRenderCache.Renderer() {
+                        @Override
+                        public void render(final Canvas canvas) {
+                            drawAvatar(canvas);
+                        }
+                    };
+                }
+                mRenderBitmap = ProfileImageViewRenderCache.getInstance().get(this, mRenderer);
+            }
+            if(mRenderBitmap != null) {
+                canvas.drawBitmap(mRenderBitmap, 0, 0, null);
+                metrics.end(this, ProfileImageViewMetrics.TIMER_DRAW, start);
+                return;
+            }
+        }
+        drawAvatar(canvas);
+        metrics.end(this, ProfileImageViewMetrics.TIMER_DRAW, start);
+    }
+
+    /**
+     * Draw Avatar
+     *
+     * @param canvas
+     */
+    private void drawAvatar(final Canvas canvas) {
+        // One animation time for the whole frame
+        mFeatureAnimation.beginFrame();
         // Uses
         final float shadowSize = helperGetShadowRadius() * 2;
         final float width = getMeasuredWidth() - getPaddingLeft() - getPaddingRight();
@@ -760,24 +1314,19 @@ public class ProfileImageView extends View {
             drawFrame(canvas, cx, cy + 2.0f * mDensity, radius, mBorderPaint);
         }
         // Border
-        if(!isInEditMode() && mShadow)
-            mBorderPaint.setShadowLayer(4.0f * mDensity, 0, 2.0f * mDensity, mTheme.shadowColor);
+        if(!isInEditMode() && mShadow && !mOutlineShadow)
+            drawShadow(canvas, cx, cy, radius - shadowSize);
         mBorderPaint.setColor(mTheme.borderColor);
         drawFrame(canvas, cx, cy, radius - shadowSize, mBorderPaint);
-        if(!isInEditMode())
-            mBorderPaint.setShadowLayer(0, 0, 0, 0);
         // Feature or Selectable border
         if(mMode == Mode.FEATURE) {
-            final int grayAnimation = (int) getAnimationFrame(0, 20);
+            final int grayAnimation = (int) getAnimationFrame(0, FEATURE_ANIMATION_GRAY);
             final int shadow = Math.min(Math.max(DEFAULT_FEATURE_MULTIPLY_SHADOW_COLOR, 0), 255);
-            final int red = Math.max(shadow - grayAnimation, 0);
-            final int green = Math.max(shadow - grayAnimation, 0);
-            final int blue = Math.max(shadow - grayAnimation, 0);
-            mPhotoPaint.setColorFilter(new PorterDuffColorFilter(Color.argb(255, red, green, blue), PorterDuff.Mode.MULTIPLY));
+            mPhotoPaint.setColorFilter(getGrayMultiplyFilter(shadow - grayAnimation));
         } else if(mMode == Mode.SELECTABLE) {
             final int shadow = Math.min(Math.max(DEFAULT_SELECTABLE_MULTIPLY_SHADOW_COLOR, 0), 255);
             final int grayAnimation = (int) getAnimationFrame(0, shadow);
-            mPhotoPaint.setColorFilter(new PorterDuffColorFilter(Color.argb(255, 255-grayAnimation, 255-grayAnimation, 255-grayAnimation), PorterDuff.Mode.MULTIPLY));
+            mPhotoPaint.setColorFilter(getGrayMultiplyFilter(255 - grayAnimation));
             mBorderPaint.setColor(Color.argb((int) getAnimationFrame(0, 255), Color.red(mTheme.selectableColor), Color.green(mTheme.selectableColor), Color.blue(mTheme.selectableColor)));
             drawFrame(canvas, cx, cy, radius - shadowSize, mBorderPaint);
         } else {
@@ -786,11 +1335,14 @@ public class ProfileImageView extends View {
         // Image
         mPhotoPaint.setColor(Color.WHITE);
         final float photoRadius = radius - helperGetBorderRadius() - shadowSize;
-        if(mTheme.backgroundColor != mTheme.borderColor) {
+        // A larger decode keeps drawing the current image
+        final boolean imageLoading = mImageRequest != null && mImage == null;
+        if(imageLoading || mTheme.backgroundColor != mTheme.borderColor) {
             mBorderPaint.setColor(mTheme.backgroundColor);
             drawFrame(canvas, cx, cy, photoRadius, mBorderPaint);
         }
-        drawFrame(canvas, cx, cy, photoRadius, mPhotoPaint);
+        if(!imageLoading)
+            drawFrame(canvas, cx, cy, photoRadius, mPhotoPaint);
         mPhotoPaint.setColorFilter(null);
         // If feature mode
         if(mMode == Mode.FEATURE) {
@@ -808,46 +1360,133 @@ public class ProfileImageView extends View {
                 final Rect dstRect = mFeatureRect[1];
                 srcRect.set(0, 0, mFeatureIcon.getWidth(), mFeatureIcon.getHeight());
                 dstRect.set((int) Math.floor(featureCX - animatedSize), (int) Math.floor(featureCY - animatedSize), (int) Math.ceil(featureCX + animatedSize), (int) Math.floor(featureCY + animatedSize));
-                mFeaturePaint.setColorFilter(new PorterDuffColorFilter(DEFAULT_FEATURE_SHADOW_COLOR, PorterDuff.Mode.MULTIPLY));
+                mFeaturePaint.setColorFilter(getFeatureShadowFilter());
                 dstRect.top += featureShadowY;
                 dstRect.bottom += featureShadowY;
                 canvas.drawBitmap(mFeatureIcon, srcRect, dstRect, mFeaturePaint);
                 dstRect.top -= featureShadowY;
                 dstRect.bottom -= featureShadowY;
-                mFeaturePaint.setColorFilter(new PorterDuffColorFilter(mTheme.featureColor, PorterDuff.Mode.MULTIPLY));
+                mFeaturePaint.setColorFilter(mFeatureColorFilter);
                 canvas.drawBitmap(mFeatureIcon, srcRect, dstRect, mFeaturePaint);
             } else
                 size = 0;
             // Draw Feature Text
             if(mFeatureText != null) {
-                // Normalize Feature Text
                 mFeaturePaint.setTextSize(0.25f * radius * Math.min(frameWidth / 2.0f, frameHeight / 2.0f));
-                final Rect featureRect = mFeatureRect[0];
-                final int featureTextY = (int)(Math.floor(featureCY + size) + mFeaturePaint.getTextSize() - 0.1f * radius);
-                final float approximateAnglePercent = (featureTextY - featureCY) / (radius - helperGetBorderRadius() - shadowSize);
-                final float approximateMaxTextSize = Math.max((float)(Math.cos((Math.PI / 2) * (approximateAnglePercent+0.05f/** Spacing */)) * radius * 2), 0);
-                String finalText = "";
-                int totalFinalTextSize = 0;
-                for(int i=0; i<mFeatureText.length(); i++) {
-                    final String c = "" + mFeatureText.charAt(i);
-                    mFeaturePaint.getTextBounds(c, 0, c.length(), featureRect);
-                    if((totalFinalTextSize + featureRect.width()) >= approximateMaxTextSize) {
-                        finalText += "..";
-                        break;
-                    }
-                    finalText += c;
-                    totalFinalTextSize += featureRect.width();
-                }
+                if(!helperFeatureTextFits(radius, cx, cy, photoRadius, size))
+                    fitFeatureText(radius, cx, cy, photoRadius, size, featureCX, featureCY);
                 // Draw Feature Text
                 mFeaturePaint.setColorFilter(null);
-                mFeaturePaint.getTextBounds(finalText, 0, finalText.length(), featureRect);
-                final int featureTextX = (int)(featureCX - featureRect.width() / 2);
                 mFeaturePaint.setColor(DEFAULT_FEATURE_SHADOW_COLOR);
-                canvas.drawText(finalText, featureTextX, featureTextY + featureShadowY, mFeaturePaint);
+                canvas.drawText(mFeatureTextFitted, mFeatureTextX, mFeatureTextY + featureShadowY, mFeaturePaint);
                 mFeaturePaint.setColor(mTheme.featureColor);
-                canvas.drawText(finalText, featureTextX, featureTextY, mFeaturePaint);
+                canvas.drawText(mFeatureTextFitted, mFeatureTextX, mFeatureTextY, mFeaturePaint);
             }
         }
+        // Next animation frame, until the end state was drawn
+        if(mFeatureAnimation.endFrame())
+            updateFeatureAnimation();
+    }
+
+    /**
+     * Helper - Feature text fits<br>
+     *     True if the fitted text was made for the same layout and can be drawn as is.
+     *
+     * @param radius
+     * @param cx
+     * @param cy
+     * @param photoRadius
+     * @param iconSize
+     * @return
+     */
+    private boolean helperFeatureTextFits(final float radius, final float cx, final float cy, final float photoRadius, final float iconSize) {
+        final float[] keys = mFeatureTextKeys;
+        return mFeatureTextFitted != null && keys[0] == radius && keys[1] == cx && keys[2] == cy && keys[3] == photoRadius && keys[4] == iconSize;
+    }
+
+    /**
+     * Fit feature text<br>
+     *     Ellipsizes the text to the frame width at its baseline with {@link Paint#breakText(String, boolean, float, float[])}
+     *     and positions it. Only called when the text or the layout changes, the text size must be set.
+     *
+     * @param radius
+     * @param cx
+     * @param cy
+     * @param photoRadius
+     * @param iconSize
+     * @param featureCX
+     * @param featureCY
+     */
+    private void fitFeatureText(final float radius, final float cx, final float cy, final float photoRadius, final float iconSize,
+                                final float featureCX, final float featureCY) {
+        final int featureTextY = (int)(Math.floor(featureCY + iconSize) + mFeaturePaint.getTextSize() - 0.1f * radius);
+        final float approximateAnglePercent = (featureTextY - featureCY) / photoRadius;
+        final float approximateMaxTextSize = Math.max((float)(Math.cos((Math.PI / 2) * (approximateAnglePercent+0.05f/** Spacing */)) * radius * 2), 0);
+        final int fit = mFeaturePaint.breakText(mFeatureText, true, approximateMaxTextSize, null);
+        final String fitted = fit < mFeatureText.length() ? mFeatureText.substring(0, fit) + ".." : mFeatureText;
+        final Rect featureRect = mFeatureRect[0];
+        mFeaturePaint.getTextBounds(fitted, 0, fitted.length(), featureRect);
+        mFeatureTextFitted = fitted;
+        mFeatureTextX = (int)(featureCX - featureRect.width() / 2);
+        mFeatureTextY = featureTextY;
+        final float[] keys = mFeatureTextKeys;
+        keys[0] = radius;
+        keys[1] = cx;
+        keys[2] = cy;
+        keys[3] = photoRadius;
+        keys[4] = iconSize;
+    }
+
+    /**
+     * Draw shadow<br>
+     *     The blurred shadow comes from the shared cache and is only looked up again after a
+     *     layout, frame, shadow or theme change.
+     *
+     * @param canvas
+     * @param cx
+     * @param cy
+     * @param radius
+     */
+    private void drawShadow(final Canvas canvas, final float cx, final float cy, final float radius) {
+        final int size = Math.round(radius * 2);
+        final int blurRadius = ProfileImageViewUtils.calculateShadowBlurRadius(mDensity);
+        if(mShadowBitmap == null)
+            mShadowBitmap = ProfileImageViewShadowCache.getInstance().get(mFrame, size, blurRadius, mTheme.shadowColor);
+        if(mShadowBitmap == null)
+            return;
+        final float offset = size / 2.0f + ProfileImageViewUtils.calculateShadowPadding(blurRadius);
+        canvas.drawBitmap(mShadowBitmap, cx - offset, cy + DEFAULT_SHADOW_OFFSET_Y * mDensity - offset, mShadowPaint);
+    }
+
+    /**
+     * Get gray multiply filter<br>
+     *     The filters are created once per gray level and shared between all views.
+     *
+     * @param gray Clamped between [0, 255]
+     * @return
+     */
+    private static PorterDuffColorFilter getGrayMultiplyFilter(int gray) {
+        gray = Math.min(Math.max(gray, 0), 255);
+        PorterDuffColorFilter filter = sGrayMultiplyFilters[gray];
+        if(filter == null) {
+            filter = new PorterDuffColorFilter(Color.argb(255, gray, gray, gray), PorterDuff.Mode.MULTIPLY);
+            ProfileImageViewMetrics.getInstance().count(ProfileImageViewMetrics.COUNTER_COLOR_FILTERS_CREATED);
+            sGrayMultiplyFilters[gray] = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * Get feature shadow filter
+     *
+     * @return
+     */
+    private static PorterDuffColorFilter getFeatureShadowFilter() {
+        if(sFeatureShadowFilter == null) {
+            sFeatureShadowFilter = new PorterDuffColorFilter(DEFAULT_FEATURE_SHADOW_COLOR, PorterDuff.Mode.MULTIPLY);
+            ProfileImageViewMetrics.getInstance().count(ProfileImageViewMetrics.COUNTER_COLOR_FILTERS_CREATED);
+        }
+        return sFeatureShadowFilter;
     }
 
     /**
@@ -859,21 +1498,324 @@ public class ProfileImageView extends View {
      * @param paint
      */
     private void drawFrame(final Canvas canvas, final float cx, final float cy, final float radius, final Paint paint) {
-        if(mFrame.mOptimizedFrame == Frame.OPTIMIZED_FRAME_CIRCLE)
+        final ProfileImageViewMetrics metrics = ProfileImageViewMetrics.getInstance();
+        if(mFrame.mOptimizedFrame == Frame.OPTIMIZED_FRAME_CIRCLE) {
+            final long start = metrics.begin(ProfileImageViewMetrics.TIMER_DRAW_FRAME_CIRCLE);
             canvas.drawCircle(cx, cy, radius, paint);
-        else if(mFrame.mOptimizedFrame == Frame.OPTIMIZED_FRAME_SQUARE) {
+            metrics.end(this, ProfileImageViewMetrics.TIMER_DRAW_FRAME_CIRCLE, start);
+        } else if(mFrame.mOptimizedFrame == Frame.OPTIMIZED_FRAME_SQUARE) {
+            final long start = metrics.begin(ProfileImageViewMetrics.TIMER_DRAW_FRAME_SQUARE);
             final float left = cx - radius;
             final float top = cy - radius;
             canvas.drawRect(left, top, left + radius * 2, top + radius * 2, paint);
+            metrics.end(this, ProfileImageViewMetrics.TIMER_DRAW_FRAME_SQUARE, start);
         } else {
-            final Path framePath = mFrame.makePath(radius, cx, cy);
-            canvas.drawPath(framePath, paint);
+            final long start = metrics.begin(ProfileImageViewMetrics.TIMER_DRAW_FRAME_PATH);
+            canvas.drawPath(getFramePath(radius, cx, cy), paint);
+            metrics.end(this, ProfileImageViewMetrics.TIMER_DRAW_FRAME_PATH, start);
         }
     }
 
-
     /**
-     * Mode
+     * Get frame path<br>
+     *     The paths are cached by (radius, cx, cy) and only rebuilt after a layout or frame change.
+     *
+     * @param radius
+     * @param cx
+     * @param cy
+     * @return
+     */
+    private Path getFramePath(final float radius, final float cx, final float cy) {
+        for(int i=0; i<mFramePathCount; i++) {
+            final int key = i * 3;
+            if(mFramePathKeys[key] == radius && mFramePathKeys[key + 1] == cx && mFramePathKeys[key + 2] == cy)
+                return mFramePaths[i];
+        }
+        // Cache full, reuse the first slot
+        final int slot = mFramePathCount < FRAME_PATH_CACHE_SIZE ? mFramePathCount++ : 0;
+        if(mFramePaths[slot] == null)
+            mFramePaths[slot] = new Path();
+        mFrame.makePath(mFramePaths[slot], radius, cx, cy);
+        mFramePathKeys[slot * 3] = radius;
+        mFramePathKeys[slot * 3 + 1] = cx;
+        mFramePathKeys[slot * 3 + 2] = cy;
+        return mFramePaths[slot];
+    }
+
+    /**
+     * Invalidate frame paths
+     */
+    private void invalidateFramePaths() {
+        mFramePathCount = 0;
+    }
+
+
+    /**
+     * Editor<br>
+     *     Changes are kept until {@link #apply()}.
+     */
+    final public class Editor {
+
+        // Consts
+        final private static int CHANGE_IMAGE = 1;
+        final private static int CHANGE_FEATURE_ICON = 1 << 1;
+        final private static int CHANGE_FEATURE_TEXT = 1 << 2;
+        final private static int CHANGE_FRAME = 1 << 3;
+        final private static int CHANGE_MODE = 1 << 4;
+        final private static int CHANGE_SCALE_MODE = 1 << 5;
+        final private static int CHANGE_BORDER = 1 << 6;
+        final private static int CHANGE_SHADOW = 1 << 7;
+        final private static int CHANGE_THEME = 1 << 8;
+
+        // Private Variables
+        private int mChanges;
+        private Bitmap mEditImage;
+        private Bitmap mEditFeatureIcon;
+        private String mEditFeatureText;
+        private Frame mEditFrame;
+        private Mode mEditMode;
+        private ScaleMode mEditScaleMode;
+        private boolean mEditBorder;
+        private boolean mEditShadow;
+        private Theme mEditTheme;
+
+        /** Private Constructor */
+        private Editor() {}
+
+        /**
+         * Clear
+         */
+        private void clear() {
+            mChanges = 0;
+            mEditImage = null;
+            mEditFeatureIcon = null;
+            mEditFeatureText = null;
+            mEditFrame = null;
+            mEditMode = null;
+            mEditScaleMode = null;
+            mEditTheme = null;
+        }
+
+        /**
+         * Set Image
+         *
+         * @param bitmap
+         * @return
+         */
+        public Editor setImage(final Bitmap bitmap) {
+            mEditImage = bitmap;
+            mChanges |= CHANGE_IMAGE;
+            return this;
+        }
+
+        /**
+         * Set Feature Icon
+         *
+         * @param icon
+         * @return
+         */
+        public Editor setFeatureIcon(final Bitmap icon) {
+            mEditFeatureIcon = icon;
+            mChanges |= CHANGE_FEATURE_ICON;
+            return this;
+        }
+
+        /**
+         * Set Feature Text
+         *
+         * @param text
+         * @return
+         */
+        public Editor setFeatureText(final String text) {
+            mEditFeatureText = text;
+            mChanges |= CHANGE_FEATURE_TEXT;
+            return this;
+        }
+
+        /**
+         * Set Frame
+         *
+         * @param frame
+         * @return
+         */
+        public Editor setFrame(final Frame frame) {
+            if(frame == null)
+                throw new ProfileImageViewException("Set a valid way.");
+            mEditFrame = frame;
+            mChanges |= CHANGE_FRAME;
+            return this;
+        }
+
+        /**
+         * Set Mode
+         *
+         * @param mode
+         * @return
+         */
+        public Editor setMode(final Mode mode) {
+            if(mode == null)
+                throw new ProfileImageViewException("Set a valid mode.");
+            mEditMode = mode;
+            mChanges |= CHANGE_MODE;
+            return this;
+        }
+
+        /**
+         * Set Scale Mode
+         *
+         * @param mode
+         * @return
+         */
+        public Editor setScaleMode(final ScaleMode mode) {
+            if(mode == null)
+                throw new ProfileImageViewException("Set a valid mode.");
+            mEditScaleMode = mode;
+            mChanges |= CHANGE_SCALE_MODE;
+            return this;
+        }
+
+        /**
+         * Set Border
+         *
+         * @param border
+         * @return
+         */
+        public Editor setBorder(final boolean border) {
+            mEditBorder = border;
+            mChanges |= CHANGE_BORDER;
+            return this;
+        }
+
+        /**
+         * Set Shadow
+         *
+         * @param shadow
+         * @return
+         */
+        public Editor setShadow(final boolean shadow) {
+            mEditShadow = shadow;
+            mChanges |= CHANGE_SHADOW;
+            return this;
+        }
+
+        /**
+         * Set Theme
+         *
+         * @param theme
+         * @return
+         */
+        public Editor setTheme(final Theme theme) {
+            if(theme == null)
+                throw new ProfileImageViewException("Set a valid theme.");
+            mEditTheme = theme;
+            mChanges |= CHANGE_THEME;
+            return this;
+        }
+
+        /**
+         * Apply<br>
+         *     Values equal to the current ones are skipped, the view refreshes at most once.
+         */
+        public void apply() {
+            final int changes = mChanges;
+            mEditDepth++;
+            try {
+                if((changes & CHANGE_IMAGE) != 0 && (mEditImage != mImage || mLastImageRes != -1 || mPendingImageRes != -1))
+                    ProfileImageView.this.setImage(mEditImage);
+                if((changes & CHANGE_FEATURE_ICON) != 0 && (mEditFeatureIcon != mFeatureIcon || mLastFeatureIconRes != -1 || mPendingFeatureIconRes != -1))
+                    ProfileImageView.this.setFeatureIcon(mEditFeatureIcon);
+                if((changes & CHANGE_FEATURE_TEXT) != 0)
+                    ProfileImageView.this.setFeatureText(mEditFeatureText);
+                if((changes & CHANGE_FRAME) != 0 && !mEditFrame.equals(mFrame))
+                    ProfileImageView.this.setFrame(mEditFrame);
+                if((changes & CHANGE_MODE) != 0)
+                    ProfileImageView.this.setMode(mEditMode);
+                if((changes & CHANGE_SCALE_MODE) != 0)
+                    ProfileImageView.this.setScaleMode(mEditScaleMode);
+                if((changes & CHANGE_BORDER) != 0)
+                    ProfileImageView.this.setBorder(mEditBorder);
+                if((changes & CHANGE_SHADOW) != 0)
+                    ProfileImageView.this.setShadow(mEditShadow);
+                if((changes & CHANGE_THEME) != 0 && !mEditTheme.equals(mTheme))
+                    ProfileImageView.this.setTheme(mEditTheme);
+            } finally {
+                clear();
+                mEditDepth--;
+            }
+            if(mEditDepth == 0) {
+                final int refresh = mPendingRefresh;
+                mPendingRefresh = REFRESH_NONE;
+                requestRefresh(refresh);
+            }
+        }
+    }
+
+    /**
+     * Frame Outline Provider<br>
+     *     Outline that follows the border frame, used to cast the shadow.
+     */
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    final private static class FrameOutlineProvider extends ViewOutlineProvider {
+
+        // Shared instance
+        final private static FrameOutlineProvider INSTANCE = new FrameOutlineProvider();
+
+        /**
+         * Attach to view
+         *
+         * @param view
+         */
+        private static void attach(final ProfileImageView view) {
+            view.setOutlineProvider(INSTANCE);
+            view.setElevation(DEFAULT_SHADOW_ELEVATION * view.mDensity);
+        }
+
+        /**
+         * Detach from view
+         *
+         * @param view
+         */
+        private static void detach(final ProfileImageView view) {
+            view.setOutlineProvider(ViewOutlineProvider.BACKGROUND);
+            view.setElevation(0);
+        }
+
+        /**
+         * Get Outline
+         *
+         * @param view
+         * @param outline
+         */
+        @Override
+        public void getOutline(final View view, final Outline outline) {
+            final ProfileImageView profileView = (ProfileImageView) view;
+            final float shadowSize = profileView.helperGetShadowRadius() * 2;
+            final float width = view.getWidth() - view.getPaddingLeft() - view.getPaddingRight();
+            final float height = view.getHeight() - view.getPaddingBottom() - view.getPaddingTop();
+            final float cx = width / 2 + view.getPaddingLeft();
+            final float cy = height / 2 + view.getPaddingTop() - shadowSize / 2;
+            final float radius = Math.min(width, height) / 2.0f - shadowSize;
+            if(radius <= 0) {
+                outline.setEmpty();
+                return;
+            }
+            final Frame frame = profileView.mFrame;
+            if(frame.mOptimizedFrame == Frame.OPTIMIZED_FRAME_CIRCLE)
+                outline.setOval(Math.round(cx - radius), Math.round(cy - radius), Math.round(cx + radius), Math.round(cy + radius));
+            else if(frame.mOptimizedFrame == Frame.OPTIMIZED_FRAME_SQUARE)
+                outline.setRect(Math.round(cx - radius), Math.round(cy - radius), Math.round(cx + radius), Math.round(cy + radius));
+            else {
+                if(profileView.mOutlinePath == null)
+                    profileView.mOutlinePath = new Path();
+                frame.makePath(profileView.mOutlinePath, radius, cx, cy);
+                outline.setConvexPath(profileView.mOutlinePath);
+            }
+            outline.setAlpha(Color.alpha(profileView.mTheme.shadowColor) / 255.0f);
+        }
+    }
+
+    /**
+     * Mode
      */
     public enum Mode {
 
@@ -957,9 +1899,17 @@ public class ProfileImageView extends View {
         }
 
         // Consts
-        final private static int OPTIMIZED_FRAME_DISABLED = -1;
-        final private static int OPTIMIZED_FRAME_CIRCLE = 0;
-        final private static int OPTIMIZED_FRAME_SQUARE = 1;
+        final static int OPTIMIZED_FRAME_DISABLED = -1;
+        final static int OPTIMIZED_FRAME_CIRCLE = 0;
+        final static int OPTIMIZED_FRAME_SQUARE = 1;
+        final static byte POINT_VERTEX = 0; /** Line from the previous point */
+        final static byte POINT_QUAD = 1; /** Control point, followed by the end point */
+        final static byte POINT_CUBIC = 2; /** First of two control points, followed by the end point */
+        final private static double ARC_PIECE = Math.PI / 2;
+        final private static float[] LOD_TOLERANCES = {0.001f, 0.002f, 0.004f, 0.008f, 0.016f, 0.032f}; /** Frame units, finest first */
+        final private static float LOD_MAX_ERROR = 0.5f; /** px */
+        final private static int LOD_MIN_VERTICES = 16;
+        final private static float[] EMPTY_VERTICES = new float[0];
 
         // Defaults Shapes
         final public static Frame SHAPE_SQUARE = new Frame();
@@ -979,17 +1929,17 @@ public class ProfileImageView extends View {
             // Optimized Circle
             SHAPE_CIRCLE.mOptimizedFrame = OPTIMIZED_FRAME_CIRCLE;
             SHAPE_CIRCLE.setCenterSquareScale(COS45);
-            SHAPE_CIRCLE.mNativeFrame = true;
+            SHAPE_CIRCLE.sealNative();
             // Optimized Square
             SHAPE_SQUARE.mOptimizedFrame = OPTIMIZED_FRAME_SQUARE;
             SHAPE_SQUARE.setCenterSquareScale(1.0f);
-            SHAPE_SQUARE.mNativeFrame = true;
+            SHAPE_SQUARE.sealNative();
             // Triangle
             SHAPE_TRIANGLE.addVertex(0, -1);
             SHAPE_TRIANGLE.addVertex(1f, 0.666f);
             SHAPE_TRIANGLE.addVertex(-1f, 0.666f);
             SHAPE_TRIANGLE.setCenterSquareScale(0.39267996f);
-            SHAPE_TRIANGLE.mNativeFrame = true;
+            SHAPE_TRIANGLE.sealNative();
             // Pentagon
             int c=0;
             double add = -Math.PI / 2.0f;
@@ -1001,7 +1951,7 @@ public class ProfileImageView extends View {
                     break;
             }
             SHAPE_PENTAGON.setCenterSquareScale(0.5720635f);
-            SHAPE_PENTAGON.mNativeFrame = true;
+            SHAPE_PENTAGON.sealNative();
             // Hexagon
             c=0;
             for(double i=0; i<Math.PI*2; i+= Math.PI*0.333333f) {
@@ -1012,7 +1962,7 @@ public class ProfileImageView extends View {
                     break;
             }
             SHAPE_HEXAGON.setCenterSquareScale(0.6123717f);
-            SHAPE_HEXAGON.mNativeFrame = true;
+            SHAPE_HEXAGON.sealNative();
             // Heptagon
             c=0;
             for(double i=0; i<Math.PI*2; i+= Math.PI*0.285714f) {
@@ -1023,7 +1973,7 @@ public class ProfileImageView extends View {
                     break;
             }
             SHAPE_HEPTAGON.setCenterSquareScale(0.6370865f);
-            SHAPE_HEPTAGON.mNativeFrame = true;
+            SHAPE_HEPTAGON.sealNative();
             // Octagon
             c=0;
             for(double i=0; i<Math.PI*2; i+= Math.PI*0.25f) {
@@ -1034,7 +1984,7 @@ public class ProfileImageView extends View {
                     break;
             }
             SHAPE_OCTAGON.setCenterSquareScale(COS45);
-            SHAPE_OCTAGON.mNativeFrame = true;
+            SHAPE_OCTAGON.sealNative();
             // Enneagon
             c=0;
             for(double i=0; i<Math.PI*2; i+= Math.PI*0.222222f) {
@@ -1045,7 +1995,7 @@ public class ProfileImageView extends View {
                     break;
             }
             SHAPE_ENNEAGON.setCenterSquareScale(0.664464f);
-            SHAPE_ENNEAGON.mNativeFrame = true;
+            SHAPE_ENNEAGON.sealNative();
             // Decagon
             c=0;
             for(double i=0; i<Math.PI*2; i+= Math.PI*0.2f) {
@@ -1056,7 +2006,7 @@ public class ProfileImageView extends View {
                     break;
             }
             SHAPE_DECAGON.setCenterSquareScale(0.6724988f);
-            SHAPE_DECAGON.mNativeFrame = true;
+            SHAPE_DECAGON.sealNative();
             // Star
             SHAPE_STAR.addVertex(0f, -1f);
             SHAPE_STAR.addVertex(0.3f, -0.34f);
@@ -1069,24 +2019,41 @@ public class ProfileImageView extends View {
             SHAPE_STAR.addVertex(-1f, -0.18f);
             SHAPE_STAR.addVertex(-0.32f, -0.34f);
             SHAPE_STAR.setCenterSquareScale(0.4f);
-            SHAPE_STAR.mNativeFrame = true;
+            SHAPE_STAR.sealNative();
             // Diamond
             SHAPE_DIAMOND.addVertex(0, -1);
             SHAPE_DIAMOND.addVertex(1, 0);
             SHAPE_DIAMOND.addVertex(0, 1);
             SHAPE_DIAMOND.addVertex(-1, 0);
             SHAPE_DIAMOND.setCenterSquareScale(0.5f);
-            SHAPE_DIAMOND.mNativeFrame = true;
+            SHAPE_DIAMOND.sealNative();
         }
 
 
-        // Final Private Variables
-        final private List<FrameVertex> mVertices = new ArrayList<>();
-
         // Private Variables
+        private float[] mPoints = EMPTY_VERTICES; /** Interleaved x/y, vertices and curve control points */
+        private int mPointCount = 0;
+        private byte[] mPointTypes; /** Null while the frame has no curves */
+        private float[] mOutline; /** Curves flattened to vertices */
+        private int mOutlineCount;
         private float mCenterSquareScale = 1.0f;
-        private int mOptimizedFrame = OPTIMIZED_FRAME_DISABLED;
+        int mOptimizedFrame = OPTIMIZED_FRAME_DISABLED;
         private boolean mNativeFrame = false;
+        private boolean mSealed = false;
+
+        // Cached metrics
+        private boolean mMetricsValid = false;
+        private FrameVertex mCenter;
+        private FrameVertex mCentroid;
+        private float mWidth;
+        private float mHeight;
+        private boolean mConvex;
+        private int mHash;
+        private float[] mMetrics;
+
+        // Level of detail, simplified vertices per tolerance
+        private float[][] mLodVertices;
+        private int[] mLodCounts;
 
         /**
          * Create Rounded Square
@@ -1097,28 +2064,11 @@ public class ProfileImageView extends View {
         final static public Frame createRoundedSquare(float radius) {
             final Frame frame = new Frame();
             radius = Math.max(Math.min(radius, 1.0f), 0.0f);
-            final double detail = 4f * Math.PI / 180.0f;
-            for (double i = 0; i < Math.PI / 2; i += detail) {
-                final float x = (float) (Math.cos(i) * radius) + (1 - radius);
-                final float y = (float) (Math.sin(i) * radius) + (1 - radius);
-                frame.addVertex(x, y);
-            }
-            for (double i = Math.PI / 2; i < Math.PI; i += detail) {
-                final float x = (float) (Math.cos(i) * radius) + (radius - 1);
-                final float y = (float) (Math.sin(i) * radius) + (1 - radius);
-                frame.addVertex(x, y);
-            }
-            for (double i = Math.PI; i < Math.PI * 1.5; i += detail) {
-                final float x = (float) (Math.cos(i) * radius) + (radius - 1);
-                final float y = (float) (Math.sin(i) * radius) + (radius - 1);
-                frame.addVertex(x, y);
-            }
-            for (double i = Math.PI * 1.5; i < Math.PI * 2; i += detail) {
-                final float x = (float) (Math.cos(i) * radius) + (1 - radius);
-                final float y = (float) (Math.sin(i) * radius) + (radius - 1);
-                frame.addVertex(x, y);
-            }
-            frame.setCenterSquareScale(ProfileImageViewUtils.calculateCenterScale(frame.mVertices));
+            frame.addArc(1 - radius, 1 - radius, radius, radius, 0, 90);
+            frame.addArc(radius - 1, 1 - radius, radius, radius, 90, 90);
+            frame.addArc(radius - 1, radius - 1, radius, radius, 180, 90);
+            frame.addArc(1 - radius, radius - 1, radius, radius, 270, 90);
+            frame.setCenterSquareScale(ProfileImageViewUtils.calculateCurveCenterScale(frame.mPointTypes, frame.mPoints, frame.mPointCount));
             return frame;
         }
 
@@ -1134,12 +2084,7 @@ public class ProfileImageView extends View {
             width = Math.max(Math.min(width, 1.0f), 0.0f);
             height = Math.max(Math.min(height, 1.0f), 0.0f);
             final Frame frame = new Frame();
-            final double detail = 4f * Math.PI / 180.0f;
-            for (double i = 0; i < Math.PI * 2; i += detail) {
-                float x = (float) (Math.cos(i) * width);
-                float y = (float) (Math.sin(i) * height);
-                frame.addVertex(x, y);
-            }
+            frame.addArc(0, 0, width, height, 0, 360);
             return frame;
         }
 
@@ -1155,11 +2100,12 @@ public class ProfileImageView extends View {
             final Frame frame = new Frame();
             final double detail = (Math.PI * 2) / sides;
             final double align = -Math.PI / 2 + rotate * Math.PI / 180.0f;
+            final float[] vertices = new float[sides * 2];
             for (int i = 0; i < sides; i++) {
-                float x = (float) Math.cos(i * detail + align);
-                float y = (float) Math.sin(i * detail + align);
-                frame.addVertex(x, y);
+                vertices[i * 2] = (float) Math.cos(i * detail + align);
+                vertices[i * 2 + 1] = (float) Math.sin(i * detail + align);
             }
+            frame.addVertices(vertices);
             return frame;
         }
 
@@ -1171,29 +2117,217 @@ public class ProfileImageView extends View {
          * @param y The value will be fixed between [-1, 1]
          */
         final public void addVertex(float x, float y) {
-            if(mNativeFrame)
-                throw new ProfileImageViewException("You can not change native forms.");
-            mVertices.add(new FrameVertex(Math.max(Math.min(x, 1.0f), -1.0f), Math.max(Math.min(y, 1.0f), -1.0f)));
+            checkMutable();
+            addPoint(x, y, POINT_VERTEX);
+        }
+
+        /**
+         * Add quadratic curve<br>
+         *     The curve starts at the last vertex.
+         *
+         * @param x1 Control point
+         * @param y1
+         * @param x2 End point
+         * @param y2
+         */
+        final public void addQuadratic(float x1, float y1, float x2, float y2) {
+            checkMutable();
+            if(mPointCount == 0)
+                throw new ProfileImageViewException("Add a vertex before curves.");
+            addPoint(x1, y1, POINT_QUAD);
+            addPoint(x2, y2, POINT_VERTEX);
+        }
+
+        /**
+         * Add cubic curve<br>
+         *     The curve starts at the last vertex.
+         *
+         * @param x1 First control point
+         * @param y1
+         * @param x2 Second control point
+         * @param y2
+         * @param x3 End point
+         * @param y3
+         */
+        final public void addCubic(float x1, float y1, float x2, float y2, float x3, float y3) {
+            checkMutable();
+            if(mPointCount == 0)
+                throw new ProfileImageViewException("Add a vertex before curves.");
+            addPoint(x1, y1, POINT_CUBIC);
+            addPoint(x2, y2, POINT_CUBIC);
+            addPoint(x3, y3, POINT_VERTEX);
+        }
+
+        /**
+         * Add elliptic arc<br>
+         *     A line joins the last vertex to the start of the arc. The arc is stored as cubic
+         *     curves, one per quarter.
+         *
+         * @param cx Center
+         * @param cy
+         * @param rx Radius
+         * @param ry
+         * @param startAngle In degrees, clockwise from the x axis
+         * @param sweepAngle In degrees, between [-360, 360]
+         */
+        final public void addArc(float cx, float cy, float rx, float ry, float startAngle, float sweepAngle) {
+            checkMutable();
+            final double start = Math.toRadians(startAngle);
+            final double sweep = Math.toRadians(Math.max(Math.min(sweepAngle, 360.0f), -360.0f));
+            final float sx = cx + (float) Math.cos(start) * rx;
+            final float sy = cy + (float) Math.sin(start) * ry;
+            if(mPointCount == 0 || mPoints[mPointCount * 2 - 2] != sx || mPoints[mPointCount * 2 - 1] != sy)
+                addPoint(sx, sy, POINT_VERTEX);
+            final int pieces = Math.max((int) Math.ceil(Math.abs(sweep) / ARC_PIECE - 1e-6), 1);
+            final double step = sweep / pieces;
+            final double k = 4.0 / 3.0 * Math.tan(step / 4);
+            for(int i=0; i<pieces; i++) {
+                final double a0 = start + step * i;
+                final double a1 = a0 + step;
+                final double cos0 = Math.cos(a0), sin0 = Math.sin(a0);
+                final double cos1 = Math.cos(a1), sin1 = Math.sin(a1);
+                addPoint((float) (cx + rx * (cos0 - k * sin0)), (float) (cy + ry * (sin0 + k * cos0)), POINT_CUBIC);
+                addPoint((float) (cx + rx * (cos1 + k * sin1)), (float) (cy + ry * (sin1 - k * cos1)), POINT_CUBIC);
+                addPoint((float) (cx + rx * cos1), (float) (cy + ry * sin1), POINT_VERTEX);
+            }
+        }
+
+        /**
+         * Add point
+         *
+         * @param x The value will be fixed between [-1, 1]
+         * @param y The value will be fixed between [-1, 1]
+         * @param type
+         */
+        final private void addPoint(final float x, final float y, final byte type) {
+            onChanged();
+            ensureCapacity(mPointCount + 1);
+            if(type != POINT_VERTEX && mPointTypes == null)
+                mPointTypes = new byte[mPoints.length / 2];
+            if(mPointTypes != null)
+                mPointTypes[mPointCount] = type;
+            mPoints[mPointCount * 2] = Math.max(Math.min(x, 1.0f), -1.0f);
+            mPoints[mPointCount * 2 + 1] = Math.max(Math.min(y, 1.0f), -1.0f);
+            mPointCount++;
+        }
+
+        /**
+         * Return true if the frame has curves
+         *
+         * @return
+         */
+        final public boolean hasCurves() {
+            return mPointTypes != null;
+        }
+
+        /**
+         * Add vertices
+         *
+         * @param vertices Interleaved x/y, the values will be fixed between [-1, 1]
+         */
+        final public void addVertices(final float[] vertices) {
+            if(vertices == null || vertices.length % 2 != 0)
+                throw new ProfileImageViewException("Set the vertices as interleaved x/y pairs.");
+            checkMutable();
+            onChanged();
+            final int count = vertices.length / 2;
+            ensureCapacity(mPointCount + count);
+            final int offset = mPointCount * 2;
+            for(int i=0; i<vertices.length; i++)
+                mPoints[offset + i] = Math.max(Math.min(vertices[i], 1.0f), -1.0f);
+            if(mPointTypes != null)
+                Arrays.fill(mPointTypes, mPointCount, mPointCount + count, POINT_VERTEX);
+            mPointCount += count;
+        }
+
+        /**
+         * Copy vertices<br>
+         *     Curves are given flattened to vertices.
+         *
+         * @param out Receives the interleaved x/y, must hold {@link #getVertexCount()} * 2 values
+         * @return Number of vertices copied
+         */
+        final public int copyVertices(final float[] out) {
+            ensureOutline();
+            if(out == null || out.length < mOutlineCount * 2)
+                throw new ProfileImageViewException("The array is smaller than the vertices.");
+            System.arraycopy(mOutline, 0, out, 0, mOutlineCount * 2);
+            return mOutlineCount;
+        }
+
+        /**
+         * Get vertex count
+         *
+         * @return Number of vertices, curves are counted flattened
+         */
+        final public int getVertexCount() {
+            ensureOutline();
+            return mOutlineCount;
+        }
+
+        /**
+         * Ensure Outline<br>
+         *     Without curves the outline is the vertices themselves.
+         */
+        final private void ensureOutline() {
+            if(mOutline != null)
+                return;
+            if(mPointTypes == null) {
+                mOutline = mPoints;
+                mOutlineCount = mPointCount;
+                return;
+            }
+            final float tolerance = ProfileImageViewUtils.CURVE_TOLERANCE;
+            final float[] outline = new float[ProfileImageViewUtils.countFlattened(mPointTypes, mPoints, mPointCount, tolerance) * 2];
+            mOutlineCount = ProfileImageViewUtils.flatten(mPointTypes, mPoints, mPointCount, tolerance, outline);
+            mOutline = outline;
+        }
+
+        /**
+         * On changed<br>
+         *     Drops the cached outline and metrics.
+         */
+        final private void onChanged() {
+            mMetricsValid = false;
+            mOutline = null;
+            mLodVertices = null;
+            mLodCounts = null;
+        }
+
+        /**
+         * Ensure capacity
+         *
+         * @param count Number of vertices
+         */
+        final private void ensureCapacity(final int count) {
+            if(mPoints.length >= count * 2)
+                return;
+            mPoints = Arrays.copyOf(mPoints, Math.max(count * 2, mPoints.length * 2));
+            if(mPointTypes != null)
+                mPointTypes = Arrays.copyOf(mPointTypes, mPoints.length / 2);
         }
 
         /**
          * Clear Vertexs
          */
         final public void clearVertices() {
-            if(mNativeFrame)
-                throw new ProfileImageViewException("You can not change native forms.");
-            mVertices.clear();
+            checkMutable();
+            onChanged();
+            mPointCount = 0;
+            mPointTypes = null;
         }
 
         /**
-         * Get Vertices
+         * Get Vertices<br>
+         *     Compatibility view, prefer {@link #copyVertices(float[])}.
          *
-         * @return
+         * @return A copy
          */
         final public List<FrameVertex> getVertices() {
-            final List<FrameVertex> vertices = new ArrayList<>();
-            for(final FrameVertex vertex : mVertices)
-                vertices.add(vertex.clone());
+            ensureOutline();
+            final List<FrameVertex> vertices = new ArrayList<>(mOutlineCount);
+            for(int i=0; i<mOutlineCount; i++)
+                vertices.add(new FrameVertex(mOutline[i * 2], mOutline[i * 2 + 1]));
             return vertices;
         }
 
@@ -1204,14 +2338,27 @@ public class ProfileImageView extends View {
          * @param centerSquareScale
          */
         final public void setCenterSquareScale(final float centerSquareScale) {
-            if(mNativeFrame)
-                throw new ProfileImageViewException("You can not change native forms.");
+            checkMutable();
             mCenterSquareScale = centerSquareScale;
         }
 
+        /**
+         * Calculate center square scale<br>
+         *     Sets the center square scale to the largest square inside the vertices. Frames that
+         *     never set it use 1.0.
+         * @return This frame
+         */
+        final public Frame calculateCenterSquareScale() {
+            checkMutable();
+            ensureOutline();
+            if(mOutlineCount > 2)
+                mCenterSquareScale = ProfileImageViewUtils.calculateCenterScale(mOutline, mOutlineCount);
+            return this;
+        }
+
         /**
          * Get center square scale<br>
-         *     Used to multiply the square photo to limit into circle
+         *     Used to multiply the square photo to limit into circle.
          * @return
          */
         final public float getCenterSquareScale() {
@@ -1226,34 +2373,210 @@ public class ProfileImageView extends View {
             return mNativeFrame;
         }
 
+        /**
+         * Seal<br>
+         *     Makes the frame immutable and computes its metrics once. Sealed frames are shared
+         *     instead of cloned, so binding them to a view costs no allocation.
+         *
+         * @return This frame
+         */
+        final public Frame seal() {
+            if(mSealed)
+                return this;
+            if(mPoints.length != mPointCount * 2) {
+                mPoints = Arrays.copyOf(mPoints, mPointCount * 2);
+                if(mPointTypes != null)
+                    mPointTypes = Arrays.copyOf(mPointTypes, mPointCount);
+                onChanged();
+            }
+            ensureOutline();
+            ensureMetrics();
+            for(int i=0; i<LOD_TOLERANCES.length; i++)
+                ensureLevelOfDetail(i);
+            mHash = calculateHash();
+            mSealed = true;
+            return this;
+        }
+
+        /**
+         * Return true if is sealed
+         * @return
+         */
+        final public boolean isSealed() {
+            return mSealed;
+        }
+
+        /**
+         * Seal as native frame
+         */
+        final private void sealNative() {
+            seal();
+            mNativeFrame = true;
+        }
+
+        /**
+         * Throws if the frame can not be changed
+         */
+        final private void checkMutable() {
+            if(mNativeFrame)
+                throw new ProfileImageViewException("You can not change native forms.");
+            if(mSealed)
+                throw new ProfileImageViewException("You can not change sealed frames.");
+        }
+
+        /**
+         * Ensure Metrics<br>
+         *     Metrics are computed once and kept until the vertices change.
+         */
+        final private void ensureMetrics() {
+            if(mMetricsValid)
+                return;
+            if(mOptimizedFrame != OPTIMIZED_FRAME_DISABLED) {
+                mCenter = new FrameVertex(0, 0);
+                mCentroid = new FrameVertex(0, 0);
+                mWidth = 2.0f;
+                mHeight = 2.0f;
+                mConvex = true;
+            } else {
+                if(mMetrics == null)
+                    mMetrics = new float[4];
+                final float[] metrics = mMetrics;
+                if(mPointTypes != null)
+                    ProfileImageViewUtils.calculateCurveBounds(mPointTypes, mPoints, mPointCount, metrics);
+                else
+                    ProfileImageViewUtils.calculateBounds(mPoints, mPointCount, metrics);
+                mCenter = new FrameVertex((metrics[0] + metrics[2]) / 2, (metrics[1] + metrics[3]) / 2);
+                mWidth = metrics[2] - metrics[0];
+                mHeight = metrics[3] - metrics[1];
+                ensureOutline();
+                ProfileImageViewUtils.calculateFrameCentroid(mOutline, mOutlineCount, metrics);
+                mCentroid = new FrameVertex(metrics[0], metrics[1]);
+                mConvex = ProfileImageViewUtils.isConvex(mOutline, mOutlineCount);
+            }
+            mMetricsValid = true;
+        }
+
         /**
          * Make Path
          *
+         * @param path Path to be rewound and filled
          * @param radius
+         * @param cx
+         * @param cy
+         */
+        final void makePath(final Path path, final float radius, final float cx, final float cy) {
+            ProfileImageViewMetrics.getInstance().count(ProfileImageViewMetrics.COUNTER_PATHS_BUILT);
+            path.rewind();
+            if(mPointCount <= 2)
+                return;
+            float[] points = mPoints;
+            int count = mPointCount;
+            final byte[] types = mPointTypes;
+            // Coarsest vertices that stay under half a pixel at this radius
+            final int level = getLevelOfDetail(radius);
+            if(level >= 0) {
+                ensureLevelOfDetail(level);
+                points = mLodVertices[level];
+                count = mLodCounts[level];
+            }
+            path.moveTo(cx + points[0] * radius, cy + points[1] * radius);
+            for(int i=1; i<count; i++) {
+                final int p = i * 2;
+                final byte type = types == null ? POINT_VERTEX : types[i];
+                if(type == POINT_QUAD) {
+                    path.quadTo(cx + points[p] * radius, cy + points[p + 1] * radius,
+                            cx + points[p + 2] * radius, cy + points[p + 3] * radius);
+                    i += 1;
+                } else if(type == POINT_CUBIC) {
+                    path.cubicTo(cx + points[p] * radius, cy + points[p + 1] * radius,
+                            cx + points[p + 2] * radius, cy + points[p + 3] * radius,
+                            cx + points[p + 4] * radius, cy + points[p + 5] * radius);
+                    i += 2;
+                } else
+                    path.lineTo(cx + points[p] * radius, cy + points[p + 1] * radius);
+            }
+            path.lineTo(cx + points[0] * radius, cy + points[1] * radius);
+        }
+
+        /**
+         * Get Level Of Detail<br>
+         *     The coarsest level whose error stays under {@link #LOD_MAX_ERROR} pixels at the radius.
+         *
+         * @param radius In pixels
+         * @return -1 to use all vertices
+         */
+        final int getLevelOfDetail(final float radius) {
+            if(mPointTypes != null || mPointCount < LOD_MIN_VERTICES || radius <= 0)
+                return -1;
+            final float tolerance = LOD_MAX_ERROR / radius;
+            int level = -1;
+            for(int i=0; i<LOD_TOLERANCES.length && LOD_TOLERANCES[i] <= tolerance; i++)
+                level = i;
+            return level;
+        }
+
+        /**
+         * Get Level Of Detail vertex count
+         *
+         * @param level
          * @return
          */
-        final private Path makePath(final float radius, final float cx, final float cy) {
-            final Path path = new Path();
-            if(mVertices.size() <= 2)
-                return path;
-            final FrameVertex firstVertex = mVertices.get(0);
-            path.moveTo(cx + firstVertex.x * radius, cy + firstVertex.y * radius);
-            for(int i=1; i<mVertices.size(); i++) {
-                final FrameVertex vertex = mVertices.get(i);
-                path.lineTo(cx + vertex.x * radius, cy + vertex.y * radius);
+        final int getLevelOfDetailCount(final int level) {
+            if(level < 0)
+                return mPointCount;
+            ensureLevelOfDetail(level);
+            return mLodCounts[level];
+        }
+
+        /**
+         * Ensure Level Of Detail<br>
+         *     Simplified once per tolerance and kept until the vertices change.
+         *
+         * @param level
+         */
+        final private void ensureLevelOfDetail(final int level) {
+            if(mPointTypes != null || mPointCount < LOD_MIN_VERTICES)
+                return;
+            if(mLodVertices == null) {
+                mLodVertices = new float[LOD_TOLERANCES.length][];
+                mLodCounts = new int[LOD_TOLERANCES.length];
             }
-            path.lineTo(cx + firstVertex.x * radius, cy + firstVertex.y * radius);
-            return path;
+            if(mLodVertices[level] != null)
+                return;
+            final float[] simplified = new float[mPointCount * 2];
+            final int count = ProfileImageViewUtils.simplifyPolygon(mPoints, mPointCount, LOD_TOLERANCES[level], simplified);
+            mLodCounts[level] = count;
+            // Nothing removed, share the vertices
+            mLodVertices[level] = count == mPointCount ? mPoints : Arrays.copyOf(simplified, count * 2);
         }
 
         /**
-         * Get Rect
+         * Return true if the frame is convex
+         * @return
+         */
+        final boolean isConvex() {
+            ensureMetrics();
+            return mConvex;
+        }
+
+        /**
+         * Get Rect<br>
+         *     Shared instance, do not change.
          * @return
          */
         final private FrameVertex getCenter() {
-            if(mOptimizedFrame != OPTIMIZED_FRAME_DISABLED)
-                return new FrameVertex(0, 0);
-            return ProfileImageViewUtils.calculateCenter(mVertices);
+            ensureMetrics();
+            return mCenter;
+        }
+
+        /**
+         * Get Centroid<br>
+         *     Shared instance, do not change.
+         * @return
+         */
+        final FrameVertex getCentroid() {
+            ensureMetrics();
+            return mCentroid;
         }
 
         /**
@@ -1261,9 +2584,8 @@ public class ProfileImageView extends View {
          * @return
          */
         final private float getWidth() {
-            if(mOptimizedFrame != OPTIMIZED_FRAME_DISABLED)
-                return 2.0f;
-            return ProfileImageViewUtils.calculateWidth(mVertices);
+            ensureMetrics();
+            return mWidth;
         }
 
         /**
@@ -1271,9 +2593,8 @@ public class ProfileImageView extends View {
          * @return
          */
         final private float getHeight() {
-            if(mOptimizedFrame != OPTIMIZED_FRAME_DISABLED)
-                return 2.0f;
-            return ProfileImageViewUtils.calculateHeight(mVertices);
+            ensureMetrics();
+            return mHeight;
         }
 
         /**
@@ -1310,14 +2631,87 @@ public class ProfileImageView extends View {
         }
 
         /**
-         * Clone
+         * Hash code
          *
          * @return
          */
+        @Override
+        public int hashCode() {
+            if(mSealed)
+                return mHash;
+            return calculateHash();
+        }
+
+        /**
+         * Calculate hash code
+         *
+         * @return
+         */
+        final private int calculateHash() {
+            int hash = mOptimizedFrame;
+            hash = 31 * hash + Float.floatToIntBits(mCenterSquareScale);
+            for(int i=0; i<mPointCount*2; i++)
+                hash = 31 * hash + Float.floatToIntBits(mPoints[i]);
+            if(mPointTypes != null) {
+                for(int i=0; i<mPointCount; i++)
+                    hash = 31 * hash + mPointTypes[i];
+            }
+            return hash;
+        }
+
+        /**
+         * Equals<br>
+         *     Frames are equal when they have the same shape.
+         *
+         * @param o
+         * @return
+         */
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof Frame))
+                return false;
+            final Frame frame = (Frame) o;
+            if(mSealed && frame.mSealed && mHash != frame.mHash)
+                return false;
+            if(mOptimizedFrame != frame.mOptimizedFrame || mCenterSquareScale != frame.mCenterSquareScale ||
+                    mPointCount != frame.mPointCount)
+                return false;
+            for(int i=0; i<mPointCount*2; i++) {
+                if(mPoints[i] != frame.mPoints[i])
+                    return false;
+            }
+            for(int i=0; i<mPointCount; i++) {
+                if(getPointType(i) != frame.getPointType(i))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Get point type
+         *
+         * @param index
+         * @return
+         */
+        final private byte getPointType(final int index) {
+            return mPointTypes == null ? POINT_VERTEX : mPointTypes[index];
+        }
+
+        /**
+         * Clone
+         *
+         * @return Sealed frames are immutable and return themselves
+         */
         final public Frame clone() {
+            if(mSealed)
+                return this;
             final Frame frame = new Frame();
-            for(final FrameVertex vertex : mVertices)
-                frame.mVertices.add(new FrameVertex(vertex.x, vertex.y));
+            frame.mPoints = Arrays.copyOf(mPoints, mPointCount * 2);
+            frame.mPointCount = mPointCount;
+            if(mPointTypes != null)
+                frame.mPointTypes = Arrays.copyOf(mPointTypes, mPointCount);
             frame.mOptimizedFrame = mOptimizedFrame;
             frame.mCenterSquareScale = mCenterSquareScale;
             frame.mNativeFrame = mNativeFrame;
@@ -1342,6 +2736,45 @@ public class ProfileImageView extends View {
         public int featureColor;
         public int selectableColor;
 
+        /**
+         * Hash code
+         *
+         * @return
+         */
+        @Override
+        public int hashCode() {
+            int hash = Float.floatToIntBits(imageScale);
+            hash = 31 * hash + Float.floatToIntBits(imageScrollX);
+            hash = 31 * hash + Float.floatToIntBits(imageScrollY);
+            hash = 31 * hash + Float.floatToIntBits(borderRadius);
+            hash = 31 * hash + borderColor;
+            hash = 31 * hash + backgroundColor;
+            hash = 31 * hash + shadowColor;
+            hash = 31 * hash + featureColor;
+            hash = 31 * hash + selectableColor;
+            return hash;
+        }
+
+        /**
+         * Equals
+         *
+         * @param o
+         * @return
+         */
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof Theme))
+                return false;
+            final Theme theme = (Theme) o;
+            return imageScale == theme.imageScale && imageScrollX == theme.imageScrollX &&
+                    imageScrollY == theme.imageScrollY && borderRadius == theme.borderRadius &&
+                    borderColor == theme.borderColor && backgroundColor == theme.backgroundColor &&
+                    shadowColor == theme.shadowColor && featureColor == theme.featureColor &&
+                    selectableColor == theme.selectableColor;
+        }
+
         /**
          * Clone
          * @return
@@ -1360,19 +2793,4 @@ public class ProfileImageView extends View {
             return theme;
         }
     }
-
-    /**
-     * Feature Animation Handler
-     */
-    final public class FeatureAnimationHandler extends Handler {
-
-        /**
-         * Handle Message
-         * @param msg
-         */
-        @Override
-        public void handleMessage(Message msg) {
-            updateFeatureAnimation();
-        }
-    }
 }
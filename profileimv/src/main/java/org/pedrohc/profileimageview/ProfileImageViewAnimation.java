@@ -0,0 +1,165 @@
+package org.pedrohc.profileimageview;
+
+import android.os.SystemClock;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final class ProfileImageViewAnimation {
+
+    // Consts
+    final static int MODE_START = 0;
+    final static int MODE_END = 1;
+    final static int MODE_NULL = 2;
+
+    /**
+     * Animation Clock
+     */
+    interface Clock {
+
+        /**
+         * Milliseconds since boot, not counting time spent in deep sleep
+         *
+         * @return
+         */
+        long uptimeMillis();
+    }
+
+    // Default clock
+    final static Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long uptimeMillis() {
+            return SystemClock.uptimeMillis();
+        }
+    };
+
+    // Final Private Variables
+    final private long mDuration;
+
+    // Private Variables
+    private Clock mClock;
+    private int mMode = MODE_NULL;
+    private long mStartTime;
+    private long mFrameTime;
+    private boolean mFrameTimeSampled;
+
+    /**
+     * Constructor
+     *
+     * @param clock
+     * @param duration In milliseconds
+     */
+    ProfileImageViewAnimation(final Clock clock, final long duration) {
+        if(clock == null)
+            throw new ProfileImageViewException("Set a valid clock.");
+        mClock = clock;
+        mDuration = duration;
+    }
+
+    /**
+     * Set Clock
+     *
+     * @param clock
+     */
+    void setClock(final Clock clock) {
+        if(clock == null)
+            throw new ProfileImageViewException("Set a valid clock.");
+        mClock = clock;
+    }
+
+    /**
+     * Start animation
+     *
+     * @param mode
+     * @return False if the mode is already running
+     */
+    boolean start(final int mode) {
+        if(mMode == mode)
+            return false;
+        mMode = mode;
+        mStartTime = mClock.uptimeMillis();
+        return true;
+    }
+
+    /**
+     * Stop animation
+     */
+    void stop() {
+        mMode = MODE_NULL;
+    }
+
+    /**
+     * Get Mode
+     *
+     * @return
+     */
+    int getMode() {
+        return mMode;
+    }
+
+    /**
+     * Return true if there is an animation not finished yet
+     *
+     * @return
+     */
+    boolean isRunning() {
+        return mMode != MODE_NULL && (mClock.uptimeMillis() - mStartTime) < mDuration;
+    }
+
+    /**
+     * Begin a drawn frame<br>
+     *     Samples the clock once, every {@link #getFrame(float, float)} until {@link #endFrame()}
+     *     uses the same time.
+     */
+    void beginFrame() {
+        mFrameTime = mClock.uptimeMillis();
+        mFrameTimeSampled = true;
+    }
+
+    /**
+     * End a drawn frame
+     *
+     * @return True if the drawn frame was not the last one, another frame must be drawn
+     */
+    boolean endFrame() {
+        final boolean running = mFrameTimeSampled && mMode != MODE_NULL && (mFrameTime - mStartTime) < mDuration;
+        mFrameTimeSampled = false;
+        return running;
+    }
+
+    /**
+     * Get Animation Frame
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    float getFrame(final float from, final float to) {
+        final float frame;
+        if(mMode == MODE_NULL)
+            frame = 1.0f;
+        else
+            frame = Math.min(Math.max((((mFrameTimeSampled ? mFrameTime : mClock.uptimeMillis()) - mStartTime) * 1.0f) / mDuration, 0.0f), 1.0f);
+        switch (mMode) {
+            case MODE_START:
+                return (1.0f - frame) * from + frame * to;
+            default:
+            case MODE_END:
+                return (1.0f - frame) * to + frame * from;
+        }
+    }
+}
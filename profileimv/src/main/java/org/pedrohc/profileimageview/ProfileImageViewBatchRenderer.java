@@ -0,0 +1,350 @@
+package org.pedrohc.profileimageview;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewBatchRenderer {
+
+    // Consts
+    final private static long KEEP_ALIVE = 10; /** s */
+    final private static int IN_FLIGHT_PER_THREAD = 4; /** Jobs taken from the input ahead of the workers */
+
+    // Final Private Variables
+    final private int mThreads;
+    final private int mMaxInFlight;
+    final private ThreadPoolExecutor mExecutor;
+    final private ThreadLocal<Scratch> mScratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    /**
+     * Constructor<br>
+     *     One thread per core.
+     */
+    public ProfileImageViewBatchRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param threads Worker threads
+     */
+    public ProfileImageViewBatchRenderer(final int threads) {
+        if(threads <= 0)
+            throw new ProfileImageViewException("Set a valid number of threads.");
+        mThreads = threads;
+        mMaxInFlight = threads * IN_FLIGHT_PER_THREAD;
+        mExecutor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            final private AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "ProfileImageView-Batch-" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Job<br>
+     *     Fields are read by a worker thread, do not change them after the job was handed to
+     *     {@link #render(Iterator, Sink)}.
+     */
+    final public static class Job {
+
+        // Variables
+        public Object tag;
+        public int[] image; /** ARGB, not premultiplied, null to draw the photo area white */
+        public int imageWidth;
+        public int imageHeight;
+        public ProfileImageView.Frame frame = ProfileImageView.Frame.SHAPE_PENTAGON;
+        public ProfileImageView.Theme theme; /** Null for {@link ProfileImageViewRasterizer#createDefaultTheme(float)} */
+        public ProfileImageView.Mode mode = ProfileImageView.Mode.PORTRAIT;
+        public ProfileImageView.ScaleMode scaleMode = ProfileImageView.ScaleMode.FIT;
+        public int size;
+        public float density = 1.0f;
+        public boolean border;
+        public boolean shadow;
+    }
+
+    /**
+     * Sink<br>
+     *     Called on the worker threads, concurrently. The pixels are reused by the next job of the
+     *     same thread, copy or write them out before returning.
+     */
+    public interface Sink {
+
+        /**
+         * On Rendered
+         *
+         * @param job
+         * @param pixels ARGB, not premultiplied, size * size values
+         */
+        void onRendered(Job job, int[] pixels);
+
+        /**
+         * On Failed
+         *
+         * @param job
+         * @param error
+         */
+        void onFailed(Job job, RuntimeException error);
+    }
+
+    /**
+     * Render<br>
+     *     Jobs are pulled from the iterator on the calling thread as workers become free, at most
+     *     {@link #getMaxInFlight()} jobs are held at once so any number of jobs can be streamed.
+     *     Blocks until every job went to the sink. If the sink throws, no more jobs are pulled and
+     *     the first exception is rethrown once the workers are done.
+     *
+     * @param jobs
+     * @param sink
+     * @return Number of rendered jobs, failures are not counted
+     * @throws InterruptedException
+     */
+    public int render(final Iterator<Job> jobs, final Sink sink) throws InterruptedException {
+        if(jobs == null || sink == null)
+            throw new ProfileImageViewException("Set valid jobs and sink.");
+        final Semaphore inFlight = new Semaphore(mMaxInFlight);
+        final AtomicInteger rendered = new AtomicInteger();
+        final AtomicReference<RuntimeException> sinkError = new AtomicReference<>();
+        try {
+            while(sinkError.get() == null && jobs.hasNext()) {
+                final Job job = jobs.next();
+                if(job == null)
+                    continue;
+                inFlight.acquire();
+                try {
+                    mExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                if(renderJob(job, sink))
+                                    rendered.incrementAndGet();
+                            } catch (RuntimeException e) {
+                                sinkError.compareAndSet(null, e);
+                            } finally {
+                                inFlight.release();
+                            }
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // Rejected, eg: after shutdown
+                    inFlight.release();
+                    throw e;
+                }
+            }
+        } finally {
+            // Wait for the workers even if the input failed
+            inFlight.acquire(mMaxInFlight);
+            inFlight.release(mMaxInFlight);
+        }
+        if(sinkError.get() != null)
+            throw sinkError.get();
+        return rendered.get();
+    }
+
+    /**
+     * Render job (Worker thread)<br>
+     *     Exceptions of the sink are not caught.
+     *
+     * @param job
+     * @param sink
+     * @return False if failed
+     */
+    private boolean renderJob(final Job job, final Sink sink) {
+        final int[] pixels;
+        try {
+            final Scratch scratch = mScratch.get();
+            final ProfileImageViewRasterizer rasterizer = scratch.get(job.size, job.density);
+            rasterizer.setFrame(job.frame);
+            rasterizer.setTheme(job.theme != null ? job.theme : scratch.defaultTheme);
+            rasterizer.setMode(job.mode);
+            rasterizer.setScaleMode(job.scaleMode);
+            rasterizer.setBorder(job.border);
+            rasterizer.setShadow(job.shadow);
+            pixels = scratch.pixels;
+            rasterizer.render(job.image, job.imageWidth, job.imageHeight, pixels);
+        } catch (RuntimeException e) {
+            sink.onFailed(job, e);
+            return false;
+        }
+        sink.onRendered(job, pixels);
+        return true;
+    }
+
+    /**
+     * Shutdown<br>
+     *     Idle threads also end after {@link #KEEP_ALIVE} seconds.
+     */
+    public void shutdown() {
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Get threads
+     *
+     * @return
+     */
+    public int getThreads() {
+        return mThreads;
+    }
+
+    /**
+     * Get max in flight
+     *
+     * @return
+     */
+    public int getMaxInFlight() {
+        return mMaxInFlight;
+    }
+
+    /**
+     * Scratch<br>
+     *     Per thread rasterizer and output, reused while the size does not change.
+     */
+    final private static class Scratch {
+
+        // Variables
+        ProfileImageViewRasterizer rasterizer;
+        ProfileImageView.Theme defaultTheme;
+        int[] pixels;
+        float density;
+
+        /**
+         * Get rasterizer
+         *
+         * @param size
+         * @param density
+         * @return
+         */
+        ProfileImageViewRasterizer get(final int size, final float density) {
+            if(rasterizer == null || rasterizer.getWidth() != size || this.density != density) {
+                rasterizer = new ProfileImageViewRasterizer(size, size, density);
+                defaultTheme = ProfileImageViewRasterizer.createDefaultTheme(density);
+                this.density = density;
+                if(pixels == null || pixels.length != size * size)
+                    pixels = new int[size * size];
+            }
+            return rasterizer;
+        }
+    }
+
+    /**
+     * Benchmark<br>
+     *     Renders count jobs of random images with the built in frames.
+     *
+     * @param threads
+     * @param count
+     * @param size
+     * @param shadow
+     * @return Images per second per thread
+     * @throws InterruptedException
+     */
+    public static float benchmark(final int threads, final int count, final int size, final boolean shadow) throws InterruptedException {
+        final ProfileImageView.Frame[] frames = {ProfileImageView.Frame.SHAPE_CIRCLE, ProfileImageView.Frame.SHAPE_SQUARE,
+                ProfileImageView.Frame.SHAPE_PENTAGON, ProfileImageView.Frame.SHAPE_HEXAGON, ProfileImageView.Frame.SHAPE_STAR};
+        final int imageSize = size * 2;
+        final int[] image = new int[imageSize * imageSize];
+        for(int i=0; i<image.length; i++)
+            image[i] = 0xFF000000 | ((i * 0x9E3779B1) >>> 8);
+        final List<Job> warmup = new ArrayList<>();
+        final ProfileImageViewBatchRenderer renderer = new ProfileImageViewBatchRenderer(threads);
+        final AtomicLong checksum = new AtomicLong();
+        final Sink sink = new Sink() {
+            @Override
+            public void onRendered(final Job job, final int[] pixels) {
+                checksum.addAndGet(pixels[pixels.length / 2]);
+            }
+
+            @Override
+            public void onFailed(final Job job, final RuntimeException error) {
+                throw error;
+            }
+        };
+        try {
+            for(int i=0; i<threads*8; i++)
+                warmup.add(createBenchmarkJob(image, imageSize, frames[i % frames.length], size, shadow));
+            renderer.render(warmup.iterator(), sink);
+            final long start = System.nanoTime();
+            renderer.render(new Iterator<Job>() {
+                private int mIndex;
+
+                @Override
+                public boolean hasNext() {
+                    return mIndex < count;
+                }
+
+                @Override
+                public Job next() {
+                    return createBenchmarkJob(image, imageSize, frames[mIndex++ % frames.length], size, shadow);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            }, sink);
+            final float seconds = (System.nanoTime() - start) / 1e9f;
+            return count / seconds / threads;
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    /**
+     * Create benchmark job
+     *
+     * @param image
+     * @param imageSize
+     * @param frame
+     * @param size
+     * @param shadow
+     * @return
+     */
+    private static Job createBenchmarkJob(final int[] image, final int imageSize, final ProfileImageView.Frame frame,
+                                          final int size, final boolean shadow) {
+        final Job job = new Job();
+        job.image = image;
+        job.imageWidth = imageSize;
+        job.imageHeight = imageSize;
+        job.frame = frame;
+        job.size = size;
+        job.border = true;
+        job.shadow = shadow;
+        return job;
+    }
+}
@@ -0,0 +1,329 @@
+package org.pedrohc.profileimageview;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewBitmapCache {
+
+    // Consts
+    final private static Bitmap.Config DECODE_CONFIG = Bitmap.Config.ARGB_8888;
+
+    // Shared instance
+    final private static ProfileImageViewBitmapCache sInstance = new ProfileImageViewBitmapCache(Runtime.getRuntime().maxMemory() / 8);
+
+    // Final Private Variables
+    final private LinkedHashMap<BitmapKey, Entry> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    final private IdentityHashMap<Bitmap, Entry> mReferences = new IdentityHashMap<>();
+
+    // Private Variables
+    private long mMaxSize;
+    private long mSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize In bytes
+     */
+    private ProfileImageViewBitmapCache(final long maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Get shared instance
+     *
+     * @return
+     */
+    public static ProfileImageViewBitmapCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Acquire<br>
+     *     Returns the cached bitmap or decodes it with {@link ProfileImageViewUtils#decodeFromResource(Resources, int, int)}.
+     *     Every acquired bitmap must be given back with {@link #release(Bitmap)}, never recycle it.
+     *
+     * @param resources
+     * @param resId
+     * @param decodeSize Displayed size in pixels, 0 to decode at full resolution
+     * @return Null if not decoded
+     */
+    public Bitmap acquire(final Resources resources, final int resId, final int decodeSize) {
+        final BitmapKey key = new BitmapKey(resId, decodeSize, DECODE_CONFIG);
+        synchronized (this) {
+            final Entry entry = mEntries.get(key);
+            if(entry != null) {
+                entry.references++;
+                mHitCount++;
+                return entry.bitmap;
+            }
+            mMissCount++;
+        }
+        // Decode without holding the lock
+        final Bitmap bitmap = ProfileImageViewUtils.decodeFromResource(resources, resId, decodeSize);
+        if(bitmap == null)
+            return null;
+        synchronized (this) {
+            final Entry entry = mEntries.get(key);
+            if(entry != null) {
+                // Decoded concurrently by another thread
+                entry.references++;
+                ProfileImageViewBitmapPool.getInstance().put(bitmap);
+                return entry.bitmap;
+            }
+            final Entry created = new Entry(bitmap);
+            created.references = 1;
+            mEntries.put(key, created);
+            mReferences.put(bitmap, created);
+            mSize += created.size;
+            trimToSize(mMaxSize);
+            return bitmap;
+        }
+    }
+
+    /**
+     * Acquire cached<br>
+     *     Like {@link #acquire(Resources, int, int)} but never decodes, eg: on the main thread.
+     *
+     * @param resId
+     * @param decodeSize
+     * @return Null if not cached
+     */
+    synchronized Bitmap acquireCached(final int resId, final int decodeSize) {
+        final Entry entry = mEntries.get(new BitmapKey(resId, decodeSize, DECODE_CONFIG));
+        if(entry == null)
+            return null;
+        entry.references++;
+        mHitCount++;
+        return entry.bitmap;
+    }
+
+    /**
+     * Contains<br>
+     *     Does not count as a hit or a miss and does not change the eviction order.
+     *
+     * @param resId
+     * @param decodeSize
+     * @return
+     */
+    synchronized boolean contains(final int resId, final int decodeSize) {
+        return mEntries.containsKey(new BitmapKey(resId, decodeSize, DECODE_CONFIG));
+    }
+
+    /**
+     * Release a bitmap returned by {@link #acquire(Resources, int, int)}
+     *
+     * @param bitmap
+     * @return False if the bitmap is not managed by this cache
+     */
+    public synchronized boolean release(final Bitmap bitmap) {
+        final Entry entry = mReferences.get(bitmap);
+        if(entry == null)
+            return false;
+        if(entry.references > 0)
+            entry.references--;
+        if(entry.references == 0) {
+            if(entry.evicted) {
+                // Evicted while in use
+                mReferences.remove(bitmap);
+                mSize -= entry.size;
+                ProfileImageViewBitmapPool.getInstance().put(bitmap);
+            } else
+                trimToSize(mMaxSize);
+        }
+        return true;
+    }
+
+    /**
+     * Trim to size<br>
+     *     Unused bitmaps are evicted from the least recently used and given to
+     *     {@link ProfileImageViewBitmapPool}, bitmaps in use are kept.
+     *
+     * @param maxSize In bytes
+     */
+    public synchronized void trimToSize(final long maxSize) {
+        final Iterator<Map.Entry<BitmapKey, Entry>> itr = mEntries.entrySet().iterator();
+        while(mSize > maxSize && itr.hasNext()) {
+            final Entry entry = itr.next().getValue();
+            if(entry.references > 0)
+                continue;
+            itr.remove();
+            mReferences.remove(entry.bitmap);
+            mSize -= entry.size;
+            mEvictionCount++;
+            ProfileImageViewBitmapPool.getInstance().put(entry.bitmap);
+        }
+    }
+
+    /**
+     * Clear<br>
+     *     Bitmaps in use are recycled once released.
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+        for(final Entry entry : mEntries.values())
+            entry.evicted = true;
+        mEvictionCount += mEntries.size();
+        mEntries.clear();
+    }
+
+    /**
+     * Set max size
+     *
+     * @param maxSize In bytes
+     */
+    public synchronized void setMaxSize(final long maxSize) {
+        if(maxSize <= 0)
+            throw new ProfileImageViewException("Set a valid size.");
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Get max size
+     *
+     * @return In bytes
+     */
+    public synchronized long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Get byte size<br>
+     *     Includes bitmaps in use.
+     *
+     * @return
+     */
+    public synchronized long getByteSize() {
+        return mSize;
+    }
+
+    /**
+     * Get hit count
+     *
+     * @return
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Get miss count
+     *
+     * @return
+     */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Get hit rate
+     *
+     * @return Between [0, 1]
+     */
+    public synchronized float getHitRate() {
+        final int total = mHitCount + mMissCount;
+        if(total == 0)
+            return 0;
+        return (mHitCount * 1.0f) / total;
+    }
+
+    /**
+     * Get eviction count
+     *
+     * @return
+     */
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Entry
+     */
+    final private static class Entry {
+
+        // Final Variables
+        final Bitmap bitmap;
+        final long size;
+
+        // Variables
+        int references;
+        boolean evicted;
+
+        /**
+         * Constructor
+         *
+         * @param bitmap
+         */
+        private Entry(final Bitmap bitmap) {
+            this.bitmap = bitmap;
+            this.size = bitmap.getByteCount();
+        }
+    }
+
+    /**
+     * Bitmap Key
+     */
+    final private static class BitmapKey {
+
+        // Final Private Variables
+        final private int mResId;
+        final private int mDecodeSize;
+        final private Bitmap.Config mConfig;
+
+        /**
+         * Constructor
+         *
+         * @param resId
+         * @param decodeSize
+         * @param config
+         */
+        private BitmapKey(final int resId, final int decodeSize, final Bitmap.Config config) {
+            mResId = resId;
+            mDecodeSize = decodeSize;
+            mConfig = config;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = mResId;
+            hash = 31 * hash + mDecodeSize;
+            hash = 31 * hash + mConfig.hashCode();
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof BitmapKey))
+                return false;
+            final BitmapKey key = (BitmapKey) o;
+            return mResId == key.mResId && mDecodeSize == key.mDecodeSize && mConfig == key.mConfig;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package org.pedrohc.profileimageview;
+
+import android.annotation.TargetApi;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewBitmapPool {
+
+    // Consts
+    final private static int MAX_OVERSIZE = 2; /** Reused bitmaps can have up to twice the needed bytes */
+
+    // Shared instance
+    final private static ProfileImageViewBitmapPool sInstance = new ProfileImageViewBitmapPool(Runtime.getRuntime().maxMemory() / 16);
+
+    // Final Private Variables
+    final private TreeMap<Integer, LinkedList<Bitmap>> mBuckets = new TreeMap<>();
+    final private LinkedList<Bitmap> mOrder = new LinkedList<>();
+
+    // Private Variables
+    private long mMaxSize;
+    private long mSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mPutCount;
+    private int mEvictionCount;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize In bytes
+     */
+    private ProfileImageViewBitmapPool(final long maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Get shared instance
+     *
+     * @return
+     */
+    public static ProfileImageViewBitmapPool getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Get<br>
+     *     Returns a cleared, mutable bitmap from the pool or creates a new one.
+     *
+     * @param width
+     * @param height
+     * @param config
+     * @return
+     */
+    public Bitmap get(final int width, final int height, final Bitmap.Config config) {
+        final Bitmap bitmap = take(width, height, config);
+        if(bitmap != null) {
+            bitmap.eraseColor(Color.TRANSPARENT);
+            return bitmap;
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /**
+     * Get reusable<br>
+     *     Returns a bitmap from the pool to be used as {@link android.graphics.BitmapFactory.Options#inBitmap},
+     *     the content is not cleared.
+     *
+     * @param width
+     * @param height
+     * @param config
+     * @return Null if there is no bitmap that can be reused
+     */
+    public Bitmap getReusable(final int width, final int height, final Bitmap.Config config) {
+        return take(width, height, config);
+    }
+
+    /**
+     * Put<br>
+     *     The bitmap must not be used after this call. Immutable bitmaps are recycled.
+     *
+     * @param bitmap
+     */
+    public synchronized void put(final Bitmap bitmap) {
+        if(bitmap == null || bitmap.isRecycled())
+            return;
+        final int size = getAllocationSize(bitmap);
+        if(!bitmap.isMutable() || size > mMaxSize) {
+            bitmap.recycle();
+            ProfileImageViewMetrics.getInstance().count(ProfileImageViewMetrics.COUNTER_BITMAPS_RECYCLED);
+            return;
+        }
+        LinkedList<Bitmap> bucket = mBuckets.get(size);
+        if(bucket == null) {
+            bucket = new LinkedList<>();
+            mBuckets.put(size, bucket);
+        }
+        bucket.add(bitmap);
+        mOrder.add(bitmap);
+        mSize += size;
+        mPutCount++;
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Take a bitmap from the pool
+     *
+     * @param width
+     * @param height
+     * @param config
+     * @return
+     */
+    private synchronized Bitmap take(final int width, final int height, final Bitmap.Config config) {
+        final int needed = width * height * getBytesPerPixel(config);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            // Any bitmap large enough can be reconfigured
+            for(final Map.Entry<Integer, LinkedList<Bitmap>> bucket : mBuckets.tailMap(needed).entrySet()) {
+                if(bucket.getKey() > needed * MAX_OVERSIZE)
+                    break;
+                final Bitmap bitmap = bucket.getValue().peekLast();
+                if(bitmap != null) {
+                    remove(bucket.getKey(), bucket.getValue(), bitmap);
+                    reconfigure(bitmap, width, height, config);
+                    mHitCount++;
+                    return bitmap;
+                }
+            }
+        } else {
+            // Only exact matches can be reused
+            final LinkedList<Bitmap> bucket = mBuckets.get(needed);
+            if(bucket != null) {
+                final Iterator<Bitmap> itr = bucket.descendingIterator();
+                while(itr.hasNext()) {
+                    final Bitmap bitmap = itr.next();
+                    if(bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                        remove(needed, bucket, bitmap);
+                        mHitCount++;
+                        return bitmap;
+                    }
+                }
+            }
+        }
+        mMissCount++;
+        return null;
+    }
+
+    /**
+     * Remove from pool
+     *
+     * @param size
+     * @param bucket
+     * @param bitmap
+     */
+    private void remove(final int size, final LinkedList<Bitmap> bucket, final Bitmap bitmap) {
+        bucket.remove(bitmap);
+        if(bucket.isEmpty())
+            mBuckets.remove(size);
+        mOrder.remove(bitmap);
+        mSize -= size;
+    }
+
+    /**
+     * Reconfigure
+     *
+     * @param bitmap
+     * @param width
+     * @param height
+     * @param config
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static void reconfigure(final Bitmap bitmap, final int width, final int height, final Bitmap.Config config) {
+        bitmap.reconfigure(width, height, config);
+    }
+
+    /**
+     * Trim to size<br>
+     *     The oldest bitmaps are recycled first.
+     *
+     * @param maxSize In bytes
+     */
+    public synchronized void trimToSize(final long maxSize) {
+        while(mSize > maxSize && !mOrder.isEmpty()) {
+            final Bitmap bitmap = mOrder.peekFirst();
+            final int size = getAllocationSize(bitmap);
+            remove(size, mBuckets.get(size), bitmap);
+            mEvictionCount++;
+            bitmap.recycle();
+            ProfileImageViewMetrics.getInstance().count(ProfileImageViewMetrics.COUNTER_BITMAPS_RECYCLED);
+        }
+    }
+
+    /**
+     * Clear
+     */
+    public void clear() {
+        trimToSize(0);
+    }
+
+    /**
+     * Set max size
+     *
+     * @param maxSize In bytes
+     */
+    public synchronized void setMaxSize(final long maxSize) {
+        if(maxSize < 0)
+            throw new ProfileImageViewException("Set a valid size.");
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Get max size
+     *
+     * @return In bytes
+     */
+    public synchronized long getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Get byte size
+     *
+     * @return
+     */
+    public synchronized long getByteSize() {
+        return mSize;
+    }
+
+    /**
+     * Get hit count
+     *
+     * @return
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Get miss count
+     *
+     * @return
+     */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Get put count
+     *
+     * @return
+     */
+    public synchronized int getPutCount() {
+        return mPutCount;
+    }
+
+    /**
+     * Get eviction count
+     *
+     * @return
+     */
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Get allocation size
+     *
+     * @param bitmap
+     * @return In bytes
+     */
+    private static int getAllocationSize(final Bitmap bitmap) {
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT)
+            return getAllocationByteCount(bitmap);
+        return bitmap.getByteCount();
+    }
+
+    /**
+     * Get allocation byte count
+     *
+     * @param bitmap
+     * @return
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static int getAllocationByteCount(final Bitmap bitmap) {
+        return bitmap.getAllocationByteCount();
+    }
+
+    /**
+     * Get bytes per pixel
+     *
+     * @param config
+     * @return
+     */
+    private static int getBytesPerPixel(final Bitmap.Config config) {
+        if(config == null)
+            return 4;
+        switch(config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+            case ARGB_8888:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.pedrohc.profileimageview;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final class ProfileImageViewBlur {
+
+    // Consts
+    final static int DEFAULT_PASSES = 3;
+    final private static int PARALLEL_THRESHOLD = 256 * 256;
+    final private static int MIN_BAND_SIZE = 32;
+    final private static int THREADS = Math.max(Runtime.getRuntime().availableProcessors(), 1);
+
+    // Shared executor, created on first parallel blur
+    private static ExecutorService sExecutor;
+
+    /** Private Constructor */
+    private ProfileImageViewBlur() {}
+
+    /**
+     * Band Task
+     */
+    private interface BandTask {
+
+        /**
+         * Run band
+         *
+         * @param from Inclusive
+         * @param to Exclusive
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Calculate the box radius that approximates a gaussian blur
+     *
+     * @param sigma Gaussian standard deviation
+     * @param passes Number of box passes
+     * @return
+     */
+    static int calculateBoxRadius(final float sigma, final int passes) {
+        if(sigma <= 0 || passes <= 0)
+            return 0;
+        final double width = Math.sqrt((12.0 * sigma * sigma) / passes + 1.0);
+        return Math.max((int) Math.round((width - 1.0) / 2.0), 0);
+    }
+
+    /**
+     * Blur in place<br>
+     *     Separable box blur, values outside the buffer are treated as zero.
+     *
+     * @param values Channel values, one per pixel
+     * @param width
+     * @param height
+     * @param radius Box radius
+     * @param passes Number of box passes, 3 passes approximate a gaussian
+     */
+    static void blur(final int[] values, final int width, final int height, final int radius, final int passes) {
+        blur(values, width, height, radius, passes, width * height >= PARALLEL_THRESHOLD && THREADS > 1);
+    }
+
+    /**
+     * Blur in place
+     *
+     * @param values
+     * @param width
+     * @param height
+     * @param radius
+     * @param passes
+     * @param parallel Split the passes in bands across the shared executor
+     */
+    static void blur(final int[] values, final int width, final int height, final int radius, final int passes, final boolean parallel) {
+        if(values.length < width * height)
+            throw new ProfileImageViewException("The buffer is smaller than the blur area.");
+        if(radius <= 0 || passes <= 0 || width <= 0 || height <= 0)
+            return;
+        final int[] scratch = new int[width * height];
+        final BandTask horizontal = new BandTask() {
+            @Override
+            public void run(final int from, final int to) {
+                for(int y=from; y<to; y++)
+                    blurLine(values, scratch, y * width, 1, width, radius);
+            }
+        };
+        final BandTask vertical = new BandTask() {
+            @Override
+            public void run(final int from, final int to) {
+                for(int x=from; x<to; x++)
+                    blurLine(scratch, values, x, width, height, radius);
+            }
+        };
+        for(int i=0; i<passes; i++) {
+            runBands(height, horizontal, parallel);
+            runBands(width, vertical, parallel);
+        }
+    }
+
+    /**
+     * Blur one line
+     *
+     * @param src
+     * @param dst
+     * @param offset Index of the first value
+     * @param stride Distance between two values of the line
+     * @param length
+     * @param radius
+     */
+    private static void blurLine(final int[] src, final int[] dst, final int offset, final int stride, final int length, final int radius) {
+        final int div = radius * 2 + 1;
+        int sum = 0;
+        for(int i=0; i<=radius && i<length; i++)
+            sum += src[offset + i * stride];
+        for(int i=0; i<length; i++) {
+            dst[offset + i * stride] = (sum + div / 2) / div;
+            final int add = i + radius + 1;
+            final int remove = i - radius;
+            if(add < length)
+                sum += src[offset + add * stride];
+            if(remove >= 0)
+                sum -= src[offset + remove * stride];
+        }
+    }
+
+    /**
+     * Run bands
+     *
+     * @param count
+     * @param task
+     * @param parallel
+     */
+    private static void runBands(final int count, final BandTask task, final boolean parallel) {
+        final int bands = parallel ? Math.min(THREADS, count / MIN_BAND_SIZE) : 1;
+        if(bands <= 1) {
+            task.run(0, count);
+            return;
+        }
+        final ExecutorService executor = getExecutor();
+        final CountDownLatch latch = new CountDownLatch(bands - 1);
+        final int bandSize = (count + bands - 1) / bands;
+        final Throwable[] error = new Throwable[1];
+        for(int i=1; i<bands; i++) {
+            final int from = i * bandSize;
+            final int to = Math.min(from + bandSize, count);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run(from, to);
+                    } catch (Throwable t) {
+                        synchronized (error) {
+                            error[0] = t;
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        // The calling thread takes the first band
+        task.run(0, Math.min(bandSize, count));
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProfileImageViewException("Blur interrupted.", e);
+        }
+        synchronized (error) {
+            if(error[0] != null)
+                throw new ProfileImageViewException("Blur failed.", error[0]);
+        }
+    }
+
+    /**
+     * Get shared executor
+     *
+     * @return
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if(sExecutor == null) {
+            sExecutor = Executors.newFixedThreadPool(THREADS - 1, new ThreadFactory() {
+                private int mCount;
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "ProfileImageView-Blur-" + (++mCount));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+}
@@ -0,0 +1,201 @@
+package org.pedrohc.profileimageview;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final class ProfileImageViewLoader {
+
+    // Consts
+    final private static int THREADS = Math.max(Math.min(Runtime.getRuntime().availableProcessors() - 1, 4), 1);
+    final private static long KEEP_ALIVE = 10; /** s */
+
+    // Shared executor and main thread handler
+    private static ThreadPoolExecutor sExecutor;
+    private static Handler sMainHandler;
+
+    /** Private Constructor */
+    private ProfileImageViewLoader() {}
+
+    /**
+     * Callback<br>
+     *     Called on the main thread, never called after the request was cancelled. The bitmap is
+     *     acquired from {@link ProfileImageViewBitmapCache} and must be released there.
+     */
+    interface Callback {
+
+        /**
+         * On Loaded
+         *
+         * @param bitmap Null if the resource could not be decoded
+         */
+        void onLoaded(Bitmap bitmap);
+    }
+
+    /**
+     * Request
+     */
+    final static class Request implements Runnable {
+
+        // Final Private Variables
+        final private Resources mResources;
+        final private int mResId;
+        final private int mDecodeSize;
+        final private Callback mCallback;
+
+        // Private Variables
+        private volatile boolean mCancelled;
+        private Future<?> mFuture;
+
+        /**
+         * Constructor
+         *
+         * @param resources
+         * @param resId
+         * @param decodeSize
+         * @param callback
+         */
+        private Request(final Resources resources, final int resId, final int decodeSize, final Callback callback) {
+            mResources = resources;
+            mResId = resId;
+            mDecodeSize = decodeSize;
+            mCallback = callback;
+        }
+
+        /**
+         * Run (Background thread)
+         */
+        @Override
+        public void run() {
+            if(mCancelled)
+                return;
+            Bitmap decoded = null;
+            try {
+                decoded = ProfileImageViewBitmapCache.getInstance().acquire(mResources, mResId, mDecodeSize);
+            } catch (OutOfMemoryError e) {
+                // Delivered as not decoded
+            } catch (RuntimeException e) {
+                // Delivered as not decoded
+            }
+            final Bitmap bitmap = decoded;
+            getMainHandler().post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(bitmap);
+                }
+            });
+        }
+
+        /**
+         * Deliver (Main thread)
+         *
+         * @param bitmap
+         */
+        private void deliver(final Bitmap bitmap) {
+            if(mCancelled) {
+                if(bitmap != null)
+                    ProfileImageViewBitmapCache.getInstance().release(bitmap);
+                return;
+            }
+            mCallback.onLoaded(bitmap);
+        }
+
+        /**
+         * Cancel (Main thread)<br>
+         *     After this call the callback is never called.
+         */
+        void cancel() {
+            mCancelled = true;
+            if(mFuture != null)
+                mFuture.cancel(false);
+        }
+    }
+
+    /**
+     * Load resource in background
+     *
+     * @param resources
+     * @param resId
+     * @param decodeSize Displayed size in pixels, 0 to decode at full resolution
+     * @param callback
+     * @return Request, used to cancel
+     */
+    static Request load(final Resources resources, final int resId, final int decodeSize, final Callback callback) {
+        final Request request = new Request(resources, resId, decodeSize, callback);
+        request.mFuture = getExecutor().submit(request);
+        return request;
+    }
+
+    /**
+     * Execute a background task on the shared executor
+     *
+     * @param task
+     */
+    static void execute(final Runnable task) {
+        getExecutor().execute(task);
+    }
+
+    /**
+     * Get shared executor
+     *
+     * @return
+     */
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if(sExecutor == null) {
+            sExecutor = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private int mCount;
+
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "ProfileImageView-Loader-" + (++mCount));
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sExecutor;
+    }
+
+    /**
+     * Get main thread handler
+     *
+     * @return
+     */
+    private static synchronized Handler getMainHandler() {
+        if(sMainHandler == null)
+            sMainHandler = new Handler(Looper.getMainLooper());
+        return sMainHandler;
+    }
+}
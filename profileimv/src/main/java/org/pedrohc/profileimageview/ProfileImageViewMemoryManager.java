@@ -0,0 +1,198 @@
+package org.pedrohc.profileimageview;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewMemoryManager implements ComponentCallbacks2 {
+
+    // Tiers, trimmed in this order
+    final public static int TIER_RENDER = 0; /** {@link ProfileImageViewRenderCache} */
+    final public static int TIER_SHADOW = 1; /** {@link ProfileImageViewShadowCache} */
+    final public static int TIER_DECODED = 2; /** {@link ProfileImageViewBitmapCache}, bitmaps in use are kept */
+    final public static int TIER_POOL = 3; /** {@link ProfileImageViewBitmapPool}, receives the evicted decoded bitmaps */
+    final public static int TIER_COUNT = 4;
+
+    // Consts
+    final private static int[] TRIM_LEVELS = {
+            TRIM_MEMORY_COMPLETE, TRIM_MEMORY_MODERATE, TRIM_MEMORY_BACKGROUND, TRIM_MEMORY_UI_HIDDEN,
+            TRIM_MEMORY_RUNNING_CRITICAL, TRIM_MEMORY_RUNNING_LOW, TRIM_MEMORY_RUNNING_MODERATE
+    };
+    final private static float[][] TRIM_RETAINED = {
+            // Render, Shadow, Decoded, Pool
+            {0.0f, 0.0f, 0.0f, 0.0f}, // Complete, only the avatars in use are kept
+            {0.0f, 0.0f, 0.5f, 0.0f}, // Moderate
+            {0.0f, 0.0f, 1.0f, 0.0f}, // Background
+            {0.0f, 1.0f, 1.0f, 0.5f}, // UI hidden, renders are redrawn cheaply when shown again
+            {0.0f, 0.0f, 0.0f, 0.0f}, // Running critical, only the avatars in use are kept
+            {0.0f, 0.5f, 1.0f, 0.5f}, // Running low
+            {0.5f, 1.0f, 1.0f, 1.0f}  // Running moderate
+    };
+
+    // Shared instance
+    final private static ProfileImageViewMemoryManager sInstance = new ProfileImageViewMemoryManager();
+
+    // Private Variables
+    private Context mContext;
+
+    /** Private Constructor */
+    private ProfileImageViewMemoryManager() {}
+
+    /**
+     * Get shared instance
+     *
+     * @return
+     */
+    public static ProfileImageViewMemoryManager getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Register<br>
+     *     Listens to the memory callbacks of the application, called by every {@link ProfileImageView}.
+     *
+     * @param context
+     */
+    public synchronized void register(final Context context) {
+        if(mContext != null)
+            return;
+        mContext = context.getApplicationContext();
+        if(mContext == null)
+            mContext = context;
+        mContext.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Unregister
+     */
+    public synchronized void unregister() {
+        if(mContext == null)
+            return;
+        mContext.unregisterComponentCallbacks(this);
+        mContext = null;
+    }
+
+    /**
+     * On Trim Memory<br>
+     *     Background levels drop the renders first, critical levels drop everything but the
+     *     bitmaps of the views in use.
+     *
+     * @param level
+     */
+    @Override
+    public void onTrimMemory(final int level) {
+        for(int tier=0; tier<TIER_COUNT; tier++) {
+            final float retained = getRetainedFraction(level, tier);
+            if(retained < 1.0f)
+                trimToSize(tier, (long) (getByteSize(tier) * retained));
+        }
+    }
+
+    /**
+     * On Low Memory
+     */
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    /**
+     * On Configuration Changed
+     *
+     * @param configuration
+     */
+    @Override
+    public void onConfigurationChanged(final Configuration configuration) {}
+
+    /**
+     * Get retained fraction<br>
+     *     The trimming policy.
+     *
+     * @param level One of the ComponentCallbacks2 TRIM_MEMORY_ levels
+     * @param tier
+     * @return Fraction of the byte size kept, between [0, 1]
+     */
+    static float getRetainedFraction(final int level, final int tier) {
+        if(tier < 0 || tier >= TIER_COUNT)
+            throw new ProfileImageViewException("Set a valid tier.");
+        for(int i=0; i<TRIM_LEVELS.length; i++)
+            if(level >= TRIM_LEVELS[i])
+                return TRIM_RETAINED[i][tier];
+        return 1.0f;
+    }
+
+    /**
+     * Trim to size
+     *
+     * @param tier
+     * @param maxSize In bytes
+     */
+    public void trimToSize(final int tier, final long maxSize) {
+        switch(tier) {
+            case TIER_RENDER:
+                ProfileImageViewRenderCache.getInstance().trimToSize((int) Math.min(maxSize, Integer.MAX_VALUE));
+                break;
+            case TIER_SHADOW:
+                ProfileImageViewShadowCache.getInstance().trimToSize((int) Math.min(maxSize, Integer.MAX_VALUE));
+                break;
+            case TIER_DECODED:
+                ProfileImageViewBitmapCache.getInstance().trimToSize(maxSize);
+                break;
+            case TIER_POOL:
+                ProfileImageViewBitmapPool.getInstance().trimToSize(maxSize);
+                break;
+            default:
+                throw new ProfileImageViewException("Set a valid tier.");
+        }
+    }
+
+    /**
+     * Get byte size
+     *
+     * @param tier
+     * @return In bytes, the decoded tier includes bitmaps in use
+     */
+    public long getByteSize(final int tier) {
+        switch(tier) {
+            case TIER_RENDER:
+                return ProfileImageViewRenderCache.getInstance().getByteSize();
+            case TIER_SHADOW:
+                return ProfileImageViewShadowCache.getInstance().getByteSize();
+            case TIER_DECODED:
+                return ProfileImageViewBitmapCache.getInstance().getByteSize();
+            case TIER_POOL:
+                return ProfileImageViewBitmapPool.getInstance().getByteSize();
+            default:
+                throw new ProfileImageViewException("Set a valid tier.");
+        }
+    }
+
+    /**
+     * Get total byte size
+     *
+     * @return In bytes
+     */
+    public long getTotalByteSize() {
+        long size = 0;
+        for(int tier=0; tier<TIER_COUNT; tier++)
+            size += getByteSize(tier);
+        return size;
+    }
+}
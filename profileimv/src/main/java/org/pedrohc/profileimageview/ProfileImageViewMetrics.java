@@ -0,0 +1,333 @@
+package org.pedrohc.profileimageview;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewMetrics {
+
+    // Timers
+    final public static int TIMER_DRAW = 0;
+    final public static int TIMER_LAYOUT = 1;
+    final public static int TIMER_DRAW_FRAME_CIRCLE = 2;
+    final public static int TIMER_DRAW_FRAME_SQUARE = 3;
+    final public static int TIMER_DRAW_FRAME_PATH = 4;
+    final public static int TIMER_DECODE = 5;
+    final public static int TIMER_COUNT = 6;
+
+    // Counters
+    final public static int COUNTER_PATHS_BUILT = 0;
+    final public static int COUNTER_COLOR_FILTERS_CREATED = 1;
+    final public static int COUNTER_BITMAPS_DECODED = 2;
+    final public static int COUNTER_BITMAPS_RECYCLED = 3;
+    final public static int COUNTER_SHADER_MATRIX_RECOMPUTED = 4;
+    final public static int COUNTER_SHADER_MATRIX_SKIPPED = 5; /** Layout passes with unchanged inputs */
+    final public static int COUNTER_COUNT = 6;
+
+    // Consts
+    final private static int BUCKETS = 64; /** Bucket i holds times in [2^(i-1), 2^i) ns */
+    final private static int TIMER_STRIDE = BUCKETS + 3; /** Buckets, count, total, max */
+    final private static String[] TRACE_SECTIONS = {
+            "ProfileImageView#onDraw", "ProfileImageView#onLayout", "ProfileImageView#drawFrame(circle)",
+            "ProfileImageView#drawFrame(square)", "ProfileImageView#drawFrame(path)", "ProfileImageView#decode"
+    };
+
+    // Shared instance
+    final private static ProfileImageViewMetrics sInstance = new ProfileImageViewMetrics();
+
+    // Final Private Variables
+    final private AtomicLongArray mTimers = new AtomicLongArray(TIMER_COUNT * TIMER_STRIDE);
+    final private AtomicLongArray mCounters = new AtomicLongArray(COUNTER_COUNT);
+
+    // Private Variables
+    private volatile boolean mEnabled;
+    private volatile Listener mListener;
+
+    /** Private Constructor */
+    private ProfileImageViewMetrics() {}
+
+    /**
+     * Get shared instance
+     *
+     * @return
+     */
+    public static ProfileImageViewMetrics getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Listener<br>
+     *     Called for every timed call while enabled, on the thread that made the call. Keep it
+     *     short, it runs inside onDraw.
+     */
+    public interface Listener {
+
+        /**
+         * On Timing
+         *
+         * @param view Null for calls not made by a view, eg: decoding
+         * @param timer One of the TIMER_ constants
+         * @param nanos
+         */
+        void onTiming(ProfileImageView view, int timer, long nanos);
+    }
+
+    /**
+     * Set Enabled<br>
+     *     Disabled by default, while disabled a timed call costs one volatile read.
+     *
+     * @param enabled
+     */
+    public void setEnabled(final boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    /**
+     * Is Enabled
+     *
+     * @return
+     */
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Set Listener
+     *
+     * @param listener Null to remove
+     */
+    public void setListener(final Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Begin a timed call<br>
+     *     Must be paired with {@link #end(ProfileImageView, int, long)} on the same thread.
+     *
+     * @param timer
+     * @return Start time, 0 if disabled
+     */
+    long begin(final int timer) {
+        if(!mEnabled)
+            return 0;
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+            beginSection(TRACE_SECTIONS[timer]);
+        return System.nanoTime();
+    }
+
+    /**
+     * End a timed call
+     *
+     * @param view
+     * @param timer
+     * @param start Returned by {@link #begin(int)}
+     */
+    void end(final ProfileImageView view, final int timer, final long start) {
+        if(start == 0)
+            return;
+        final long nanos = System.nanoTime() - start;
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+            endSection();
+        record(timer, nanos);
+        final Listener listener = mListener;
+        if(listener != null)
+            listener.onTiming(view, timer, nanos);
+    }
+
+    /**
+     * Record a time
+     *
+     * @param timer
+     * @param nanos
+     */
+    void record(final int timer, final long nanos) {
+        final int base = timer * TIMER_STRIDE;
+        mTimers.incrementAndGet(base + getBucket(nanos));
+        mTimers.incrementAndGet(base + BUCKETS);
+        mTimers.addAndGet(base + BUCKETS + 1, nanos);
+        final int maxIndex = base + BUCKETS + 2;
+        long max = mTimers.get(maxIndex);
+        while(nanos > max && !mTimers.compareAndSet(maxIndex, max, nanos))
+            max = mTimers.get(maxIndex);
+    }
+
+    /**
+     * Count
+     *
+     * @param counter
+     */
+    void count(final int counter) {
+        if(mEnabled)
+            mCounters.incrementAndGet(counter);
+    }
+
+    /**
+     * Get bucket
+     *
+     * @param nanos
+     * @return
+     */
+    static int getBucket(final long nanos) {
+        if(nanos <= 0)
+            return 0;
+        return Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+    }
+
+    /**
+     * Get snapshot<br>
+     *     Values recorded while the snapshot is taken may be partially included.
+     *
+     * @return
+     */
+    public Snapshot getSnapshot() {
+        final long[] timers = new long[mTimers.length()];
+        for(int i=0; i<timers.length; i++)
+            timers[i] = mTimers.get(i);
+        final long[] counters = new long[mCounters.length()];
+        for(int i=0; i<counters.length; i++)
+            counters[i] = mCounters.get(i);
+        return new Snapshot(timers, counters);
+    }
+
+    /**
+     * Reset
+     */
+    public void reset() {
+        for(int i=0; i<mTimers.length(); i++)
+            mTimers.set(i, 0);
+        for(int i=0; i<mCounters.length(); i++)
+            mCounters.set(i, 0);
+    }
+
+    /**
+     * Begin trace section
+     *
+     * @param name
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginSection(final String name) {
+        Trace.beginSection(name);
+    }
+
+    /**
+     * End trace section
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void endSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * Snapshot
+     */
+    final public static class Snapshot {
+
+        // Final Private Variables
+        final private long[] mTimers;
+        final private long[] mCounters;
+
+        /**
+         * Constructor
+         *
+         * @param timers
+         * @param counters
+         */
+        private Snapshot(final long[] timers, final long[] counters) {
+            mTimers = timers;
+            mCounters = counters;
+        }
+
+        /**
+         * Get count
+         *
+         * @param timer
+         * @return
+         */
+        public long getCount(final int timer) {
+            return mTimers[timer * TIMER_STRIDE + BUCKETS];
+        }
+
+        /**
+         * Get total time
+         *
+         * @param timer
+         * @return In nanoseconds
+         */
+        public long getTotalTime(final int timer) {
+            return mTimers[timer * TIMER_STRIDE + BUCKETS + 1];
+        }
+
+        /**
+         * Get max time
+         *
+         * @param timer
+         * @return In nanoseconds
+         */
+        public long getMaxTime(final int timer) {
+            return mTimers[timer * TIMER_STRIDE + BUCKETS + 2];
+        }
+
+        /**
+         * Get average time
+         *
+         * @param timer
+         * @return In nanoseconds
+         */
+        public long getAverageTime(final int timer) {
+            final long count = getCount(timer);
+            return count == 0 ? 0 : getTotalTime(timer) / count;
+        }
+
+        /**
+         * Get percentile<br>
+         *     From the histogram, the result is the upper bound of the power of two bucket.
+         *
+         * @param timer
+         * @param percentile Between (0, 100]
+         * @return In nanoseconds
+         */
+        public long getPercentile(final int timer, final float percentile) {
+            final long count = getCount(timer);
+            if(count == 0)
+                return 0;
+            final long rank = Math.max((long) Math.ceil(percentile / 100.0 * count), 1);
+            final int base = timer * TIMER_STRIDE;
+            long seen = 0;
+            for(int i=0; i<BUCKETS; i++) {
+                seen += mTimers[base + i];
+                if(seen >= rank)
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, getMaxTime(timer));
+            }
+            return getMaxTime(timer);
+        }
+
+        /**
+         * Get counter
+         *
+         * @param counter
+         * @return
+         */
+        public long getCounter(final int counter) {
+            return mCounters[counter];
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package org.pedrohc.profileimageview;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewPrefetcher {
+
+    // Consts
+    final private static int DEFAULT_MIN_LOOKAHEAD = 2; /** Items on each side while idle */
+    final private static int DEFAULT_MAX_LOOKAHEAD = 12; /** Items ahead while flinging */
+    final private static float LOOKAHEAD_TIME = 0.5f; /** s, items reached in this time are prefetched */
+
+    // Final Private Variables
+    final private float mDensity;
+    final private int mSdkInt;
+    final private Source mSource;
+    final private Executor mExecutor;
+    final private Cache mCache;
+    final private Map<Integer, Task> mTasks = new HashMap<>();
+    final private int[] mWindow = new int[2];
+
+    // Private Variables
+    private int mMinLookahead = DEFAULT_MIN_LOOKAHEAD;
+    private int mMaxLookahead = DEFAULT_MAX_LOOKAHEAD;
+
+    /**
+     * Constructor
+     *
+     * @param context
+     * @param source
+     */
+    public ProfileImageViewPrefetcher(final Context context, final Source source) {
+        this(context.getResources().getDisplayMetrics().density, Build.VERSION.SDK_INT, source, new Executor() {
+            @Override
+            public void execute(final Runnable task) {
+                ProfileImageViewLoader.execute(task);
+            }
+        }, new SharedCache(context.getResources()));
+    }
+
+    /**
+     * Constructor
+     *
+     * @param density
+     * @param sdkInt Decides which frames cast an outline shadow
+     * @param source
+     * @param executor Runs the tasks in background
+     * @param cache
+     */
+    ProfileImageViewPrefetcher(final float density, final int sdkInt, final Source source, final Executor executor, final Cache cache) {
+        if(source == null)
+            throw new ProfileImageViewException("Set a valid source.");
+        mDensity = density;
+        mSdkInt = sdkInt;
+        mSource = source;
+        mExecutor = executor;
+        mCache = cache;
+    }
+
+    /**
+     * Item<br>
+     *     What a bind will show. Fields are read by a background thread, do not change them after
+     *     the item was returned by {@link Source#getItem(int)}.
+     */
+    final public static class Item {
+
+        // Variables
+        public int imageResId = -1;
+        public int featureIconResId = -1;
+        public ProfileImageView.Frame frame = ProfileImageView.Frame.SHAPE_PENTAGON;
+        public ProfileImageView.Theme theme; /** Null for the default image scale, required with shadow */
+        public int size; /** Smaller side of the view without padding, in pixels */
+        public boolean shadow;
+    }
+
+    /**
+     * Source<br>
+     *     Usually the adapter, called on the main thread.
+     */
+    public interface Source {
+
+        /**
+         * Get count
+         *
+         * @return
+         */
+        int getCount();
+
+        /**
+         * Get item
+         *
+         * @param position
+         * @return Null to skip the position
+         */
+        Item getItem(int position);
+    }
+
+    /**
+     * Cache<br>
+     *     Where the tasks decode and render, the shared caches outside of tests.
+     */
+    interface Cache {
+
+        /**
+         * Contains
+         *
+         * @param resId
+         * @param decodeSize
+         * @return True if the bitmap is already decoded
+         */
+        boolean contains(int resId, int decodeSize);
+
+        /**
+         * Decode (Background thread)
+         *
+         * @param resId
+         * @param decodeSize
+         */
+        void decode(int resId, int decodeSize);
+
+        /**
+         * Render shadow (Background thread)
+         *
+         * @param frame
+         * @param size
+         * @param blurRadius
+         * @param color
+         */
+        void renderShadow(ProfileImageView.Frame frame, int size, int blurRadius, int color);
+    }
+
+    /**
+     * Shared cache<br>
+     *     Decodes into {@link ProfileImageViewBitmapCache} and renders into
+     *     {@link ProfileImageViewShadowCache}, the bind then finds them.
+     */
+    final private static class SharedCache implements Cache {
+
+        // Final Private Variables
+        final private Resources mResources;
+
+        /**
+         * Constructor
+         *
+         * @param resources
+         */
+        private SharedCache(final Resources resources) {
+            mResources = resources;
+        }
+
+        @Override
+        public boolean contains(final int resId, final int decodeSize) {
+            return ProfileImageViewBitmapCache.getInstance().contains(resId, decodeSize);
+        }
+
+        @Override
+        public void decode(final int resId, final int decodeSize) {
+            final ProfileImageViewBitmapCache cache = ProfileImageViewBitmapCache.getInstance();
+            // Unused until a bind acquires it
+            final Bitmap bitmap = cache.acquire(mResources, resId, decodeSize);
+            if(bitmap != null)
+                cache.release(bitmap);
+        }
+
+        @Override
+        public void renderShadow(final ProfileImageView.Frame frame, final int size, final int blurRadius, final int color) {
+            ProfileImageViewShadowCache.getInstance().get(frame, size, blurRadius, color);
+        }
+    }
+
+    /**
+     * Set lookahead<br>
+     *     The window grows with the scroll velocity, from min items on each side while idle to max
+     *     items ahead while flinging.
+     *
+     * @param min
+     * @param max
+     */
+    public void setLookahead(final int min, final int max) {
+        if(min < 0 || max < min)
+            throw new ProfileImageViewException("Set a valid lookahead.");
+        mMinLookahead = min;
+        mMaxLookahead = max;
+    }
+
+    /**
+     * On Scroll (Main thread)<br>
+     *     Prefetches the items of the window and cancels what left it, eg: from a scroll listener
+     *     of the list.
+     *
+     * @param firstVisible First visible position
+     * @param lastVisible Last visible position
+     * @param velocity Items per second, positive towards the last position
+     */
+    public void onScroll(final int firstVisible, final int lastVisible, final float velocity) {
+        final int[] window = mWindow;
+        calculateWindow(firstVisible, lastVisible, velocity, mSource.getCount(), mMinLookahead, mMaxLookahead, window);
+        // Cancel what left the window
+        final Iterator<Map.Entry<Integer, Task>> itr = mTasks.entrySet().iterator();
+        while(itr.hasNext()) {
+            final Map.Entry<Integer, Task> entry = itr.next();
+            final int position = entry.getKey();
+            if(position < window[0] || position >= window[1]) {
+                entry.getValue().cancel();
+                itr.remove();
+            }
+        }
+        // Nearest first, in the scroll direction
+        if(velocity >= 0) {
+            for(int position = lastVisible + 1; position < window[1]; position++)
+                prefetch(position);
+            for(int position = firstVisible - 1; position >= window[0]; position--)
+                prefetch(position);
+        } else {
+            for(int position = firstVisible - 1; position >= window[0]; position--)
+                prefetch(position);
+            for(int position = lastVisible + 1; position < window[1]; position++)
+                prefetch(position);
+        }
+    }
+
+    /**
+     * Cancel (Main thread)<br>
+     *     Cancels every pending prefetch, eg: when the data set changed or the list was detached.
+     */
+    public void cancel() {
+        for(final Task task : mTasks.values())
+            task.cancel();
+        mTasks.clear();
+    }
+
+    /**
+     * Prefetch position
+     *
+     * @param position
+     */
+    private void prefetch(final int position) {
+        if(mTasks.containsKey(position))
+            return;
+        final Item item = mSource.getItem(position);
+        if(item == null)
+            return;
+        if(item.shadow && item.theme == null)
+            throw new ProfileImageViewException("Set a valid theme.");
+        // The view does not read the shadow bitmap of an outline shadow
+        final boolean shadow = item.shadow && !ProfileImageViewUtils.isOutlineShadow(item.frame, mSdkInt);
+        final Task task = new Task(item, shadow);
+        mTasks.put(position, task);
+        // Already decoded, only the shadow may be missing
+        final int decodeSize = ProfileImageViewUtils.calculateDecodeSize(item.size, item.size, item.theme);
+        final Cache cache = mCache;
+        if(!shadow && (item.imageResId == -1 || cache.contains(item.imageResId, decodeSize))
+                && (item.featureIconResId == -1 || cache.contains(item.featureIconResId, decodeSize)))
+            return;
+        final FutureTask<Void> future = new FutureTask<>(task, null);
+        task.mFuture = future;
+        mExecutor.execute(future);
+    }
+
+    /**
+     * Calculate window<br>
+     *     Positions prefetched around the visible ones, bounded by the scroll velocity.
+     *
+     * @param firstVisible
+     * @param lastVisible
+     * @param velocity Items per second, positive towards the last position
+     * @param count Number of items
+     * @param minLookahead Items on each side
+     * @param maxLookahead Items ahead at most
+     * @param out Receives the first position and the position after the last one
+     */
+    static void calculateWindow(final int firstVisible, final int lastVisible, final float velocity, final int count,
+                                final int minLookahead, final int maxLookahead, final int[] out) {
+        final int ahead = (int) Math.min(Math.max(Math.ceil(Math.abs(velocity) * LOOKAHEAD_TIME), minLookahead), maxLookahead);
+        final int before = velocity < 0 ? ahead : minLookahead;
+        final int after = velocity > 0 ? ahead : minLookahead;
+        out[0] = Math.max(firstVisible - before, 0);
+        out[1] = Math.max(Math.min(lastVisible + 1 + after, count), out[0]);
+    }
+
+    /**
+     * Task<br>
+     *     Decodes and renders the shadow of an item into the {@link Cache}.
+     */
+    final private class Task implements Runnable {
+
+        // Final Private Variables
+        final private Item mItem;
+        final private boolean mShadow;
+
+        // Private Variables
+        private volatile boolean mCancelled;
+        private FutureTask<Void> mFuture;
+
+        /**
+         * Constructor
+         *
+         * @param item
+         * @param shadow Render the shadow bitmap
+         */
+        private Task(final Item item, final boolean shadow) {
+            mItem = item;
+            mShadow = shadow;
+        }
+
+        /**
+         * Run (Background thread)
+         */
+        @Override
+        public void run() {
+            final Item item = mItem;
+            final int decodeSize = ProfileImageViewUtils.calculateDecodeSize(item.size, item.size, item.theme);
+            try {
+                if(item.imageResId != -1 && !mCancelled)
+                    decode(item.imageResId, decodeSize);
+                if(item.featureIconResId != -1 && !mCancelled)
+                    decode(item.featureIconResId, decodeSize);
+                if(mShadow && !mCancelled)
+                    mCache.renderShadow(item.frame, ProfileImageViewUtils.calculateShadowSize(item.size, mDensity),
+                            ProfileImageViewUtils.calculateShadowBlurRadius(mDensity), item.theme.shadowColor);
+            } catch (OutOfMemoryError e) {
+                // Decoded on bind instead
+            } catch (RuntimeException e) {
+                // Decoded on bind instead
+            }
+        }
+
+        /**
+         * Decode into the cache
+         *
+         * @param resId
+         * @param decodeSize
+         */
+        private void decode(final int resId, final int decodeSize) {
+            if(!mCache.contains(resId, decodeSize))
+                mCache.decode(resId, decodeSize);
+        }
+
+        /**
+         * Cancel (Main thread)
+         */
+        private void cancel() {
+            mCancelled = true;
+            if(mFuture != null)
+                mFuture.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,556 @@
+package org.pedrohc.profileimageview;
+
+import java.util.Arrays;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewRasterizer {
+
+    // Consts
+    final private static float CIRCLE_TOLERANCE = 0.1f; /** px */
+    final private static float[] SQUARE_VERTICES = {-1, -1, 1, -1, 1, 1, -1, 1};
+    final private static int WHITE = 0xFFFFFFFF;
+
+    // Final Private Variables
+    final private int mWidth;
+    final private int mHeight;
+    final private float mDensity;
+    final private float[] mAccumulation;
+    final private float[] mTransform = new float[3];
+
+    // Private Variables
+    private ProfileImageView.Frame mFrame = ProfileImageView.Frame.SHAPE_PENTAGON;
+    private ProfileImageView.Theme mTheme;
+    private ProfileImageView.Mode mMode = ProfileImageView.Mode.PORTRAIT;
+    private ProfileImageView.ScaleMode mScaleMode = ProfileImageView.ScaleMode.FIT;
+    private boolean mBorder;
+    private boolean mShadow;
+    private float[] mVertices = new float[0];
+    private int[] mShadowMask;
+    private float[] mShadowAccumulation;
+
+    /**
+     * Constructor<br>
+     *     Renders without android.graphics, the same avatar the view draws in a (width, height) view
+     *     with no padding. Not thread safe, use one rasterizer per thread.
+     *
+     * @param width Output width in pixels
+     * @param height Output height in pixels
+     * @param density Display density, scales the border and shadow as dp
+     */
+    public ProfileImageViewRasterizer(final int width, final int height, final float density) {
+        if(width <= 0 || height <= 0)
+            throw new ProfileImageViewException("Set a valid size.");
+        if(density <= 0)
+            throw new ProfileImageViewException("Set a valid density.");
+        mWidth = width;
+        mHeight = height;
+        mDensity = density;
+        mAccumulation = new float[width * height + 4];
+        mTheme = createDefaultTheme(density);
+    }
+
+    /**
+     * Create default theme<br>
+     *     Same values as a view without theme attributes.
+     *
+     * @param density
+     * @return
+     */
+    public static ProfileImageView.Theme createDefaultTheme(final float density) {
+        final ProfileImageView.Theme theme = new ProfileImageView.Theme();
+        theme.imageScale = 1.0f;
+        theme.borderRadius = ProfileImageView.DEFAULT_BORDER_RADIUS * density;
+        theme.borderColor = ProfileImageView.DEFAULT_BORDER_COLOR;
+        theme.backgroundColor = ProfileImageView.DEFAULT_BACKGROUND_COLOR;
+        theme.shadowColor = ProfileImageView.DEFAULT_SHADOW_COLOR;
+        theme.featureColor = ProfileImageView.DEFAULT_FEATURE_COLOR;
+        theme.selectableColor = ProfileImageView.DEFAULT_SELECTABLE_COLOR;
+        return theme;
+    }
+
+    /**
+     * Set Frame
+     *
+     * @param frame
+     */
+    public void setFrame(final ProfileImageView.Frame frame) {
+        if(frame == null)
+            throw new ProfileImageViewException("Set a valid way.");
+        mFrame = frame.clone();
+    }
+
+    /**
+     * Set Theme
+     *
+     * @param theme
+     */
+    public void setTheme(final ProfileImageView.Theme theme) {
+        if(theme == null)
+            throw new ProfileImageViewException("Set a valid theme.");
+        mTheme = theme.clone();
+    }
+
+    /**
+     * Set Mode<br>
+     *     Modes are rendered at rest, the feature icon and text are not drawn.
+     *
+     * @param mode
+     */
+    public void setMode(final ProfileImageView.Mode mode) {
+        if(mode == null)
+            throw new ProfileImageViewException("Set a valid mode.");
+        mMode = mode;
+    }
+
+    /**
+     * Set Scale Mode
+     *
+     * @param mode
+     */
+    public void setScaleMode(final ProfileImageView.ScaleMode mode) {
+        if(mode == null)
+            throw new ProfileImageViewException("Set a valid mode.");
+        mScaleMode = mode;
+    }
+
+    /**
+     * Set Border
+     *
+     * @param border
+     */
+    public void setBorder(final boolean border) {
+        mBorder = border;
+    }
+
+    /**
+     * Set Shadow
+     *
+     * @param shadow
+     */
+    public void setShadow(final boolean shadow) {
+        mShadow = shadow;
+    }
+
+    /**
+     * Get Width
+     *
+     * @return
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Get Height
+     *
+     * @return
+     */
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Render<br>
+     *     Same layout as {@link ProfileImageView#onLayout(boolean, int, int, int, int)} and
+     *     {@link ProfileImageView#onDraw(android.graphics.Canvas)}, frames are filled with analytic
+     *     coverage anti-aliasing and the image is sampled bilinearly.
+     *
+     * @param image ARGB pixels, not premultiplied, null to draw the photo area white
+     * @param imageWidth
+     * @param imageHeight
+     * @param out Receives the ARGB pixels, not premultiplied, must hold width * height values
+     */
+    public void render(final int[] image, final int imageWidth, final int imageHeight, final int[] out) {
+        if(out == null || out.length < mWidth * mHeight)
+            throw new ProfileImageViewException("The output is smaller than the rasterizer.");
+        if(image != null && (imageWidth <= 0 || imageHeight <= 0 || image.length < imageWidth * imageHeight))
+            throw new ProfileImageViewException("Set a valid image.");
+        // Pixels are blended premultiplied
+        Arrays.fill(out, 0, mWidth * mHeight, 0);
+        final float shadowRadius = mShadow ? ProfileImageViewUtils.calculateShadowRadius(mDensity) : 0.0f;
+        final float borderRadius = mBorder ? mTheme.borderRadius : 0.0f;
+        final float shadowSize = shadowRadius * 2;
+        final float cx = mWidth / 2.0f;
+        final float cy = mHeight / 2.0f - shadowSize / 2;
+        final float radius = Math.min(mWidth, mHeight) / 2.0f;
+        // Shadow
+        if(mShadow)
+            drawShadow(out, cx, cy, radius - shadowSize);
+        // Border
+        fillFrame(out, cx, cy, radius - shadowSize, mTheme.borderColor, null, 0, 0, 255);
+        // Photo tint at rest
+        int gray = 255;
+        if(mMode == ProfileImageView.Mode.FEATURE)
+            gray = Math.min(Math.max(ProfileImageView.DEFAULT_FEATURE_MULTIPLY_SHADOW_COLOR, 0), 255);
+        // Background and photo
+        final float photoRadius = radius - borderRadius - shadowSize;
+        if(mTheme.backgroundColor != mTheme.borderColor)
+            fillFrame(out, cx, cy, photoRadius, mTheme.backgroundColor, null, 0, 0, 255);
+        if(image != null)
+            ProfileImageViewUtils.calculateImageTransform(mWidth, mHeight, 0, 0, 0, 0, borderRadius, shadowRadius,
+                    imageWidth, mTheme, mScaleMode, mFrame.getCenterSquareScale(), mTransform);
+        fillFrame(out, cx, cy, photoRadius, WHITE, image, imageWidth, imageHeight, gray);
+        unpremultiply(out, mWidth * mHeight);
+    }
+
+    /**
+     * Draw Shadow<br>
+     *     Blurred frame mask, as {@link ProfileImageViewShadowCache}.
+     *
+     * @param out
+     * @param cx
+     * @param cy
+     * @param radius
+     */
+    private void drawShadow(final int[] out, final float cx, final float cy, final float radius) {
+        final int size = Math.round(radius * 2);
+        if(size <= 0)
+            return;
+        final int blurRadius = ProfileImageViewUtils.calculateShadowBlurRadius(mDensity);
+        final int padding = ProfileImageViewUtils.calculateShadowPadding(blurRadius);
+        final int maskSize = size + padding * 2;
+        if(mShadowMask == null || mShadowMask.length < maskSize * maskSize)
+            mShadowMask = new int[maskSize * maskSize];
+        if(mShadowAccumulation == null || mShadowAccumulation.length < maskSize * maskSize + 4)
+            mShadowAccumulation = new float[maskSize * maskSize + 4];
+        final int[] mask = mShadowMask;
+        final float[] accumulation = mShadowAccumulation;
+        Arrays.fill(accumulation, 0);
+        // Rasterize the mask alone
+        final float maskRadius = size / 2.0f;
+        final float maskCenter = padding + maskRadius;
+        final int vertices = prepareVertices(maskRadius);
+        for(int i=0; i<vertices; i++) {
+            final int a = i * 2;
+            final int b = ((i + 1) % vertices) * 2;
+            accumulateLine(accumulation, maskSize, maskSize, maskCenter + mVertices[a] * maskRadius, maskCenter + mVertices[a + 1] * maskRadius,
+                    maskCenter + mVertices[b] * maskRadius, maskCenter + mVertices[b + 1] * maskRadius);
+        }
+        float sum = 0;
+        for(int i=0; i<maskSize*maskSize; i++) {
+            sum += accumulation[i];
+            mask[i] = Math.round(Math.min(Math.abs(sum), 1.0f) * 255);
+        }
+        ProfileImageViewBlur.blur(mask, maskSize, maskSize, blurRadius, ProfileImageViewBlur.DEFAULT_PASSES);
+        // Composite colorized
+        final int color = mTheme.shadowColor;
+        final int colorAlpha = color >>> 24;
+        final int left = Math.round(cx - maskSize / 2.0f);
+        final int top = Math.round(cy + ProfileImageView.DEFAULT_SHADOW_OFFSET_Y * mDensity - maskSize / 2.0f);
+        for(int y=0; y<maskSize; y++) {
+            final int oy = top + y;
+            if(oy < 0 || oy >= mHeight)
+                continue;
+            for(int x=0; x<maskSize; x++) {
+                final int ox = left + x;
+                if(ox < 0 || ox >= mWidth)
+                    continue;
+                final int alpha = (mask[y * maskSize + x] * colorAlpha + 127) / 255;
+                if(alpha > 0)
+                    out[oy * mWidth + ox] = blend(out[oy * mWidth + ox], premultiply(color, alpha));
+            }
+        }
+    }
+
+    /**
+     * Fill frame
+     *
+     * @param out Premultiplied pixels
+     * @param cx
+     * @param cy
+     * @param radius
+     * @param color Used when there is no image
+     * @param image Sampled with {@link #mTransform}, null for a solid color
+     * @param imageWidth
+     * @param imageHeight
+     * @param gray Multiply, 255 to keep the colors
+     */
+    private void fillFrame(final int[] out, final float cx, final float cy, final float radius, final int color,
+                           final int[] image, final int imageWidth, final int imageHeight, final int gray) {
+        if(radius <= 0)
+            return;
+        final float[] accumulation = mAccumulation;
+        final int vertices = prepareVertices(radius);
+        float minY = Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for(int i=0; i<vertices; i++) {
+            final int a = i * 2;
+            final int b = ((i + 1) % vertices) * 2;
+            final float y0 = cy + mVertices[a + 1] * radius;
+            accumulateLine(accumulation, mWidth, mHeight, cx + mVertices[a] * radius, y0,
+                    cx + mVertices[b] * radius, cy + mVertices[b + 1] * radius);
+            minY = Math.min(minY, y0);
+            maxY = Math.max(maxY, y0);
+        }
+        final int top = Math.max((int) Math.floor(minY), 0);
+        final int bottom = Math.min((int) Math.ceil(maxY) + 1, mHeight);
+        final int solid = premultiply(color, color >>> 24);
+        final float inverseScale = 1.0f / mTransform[2];
+        float sum = 0;
+        for(int y=top; y<bottom; y++) {
+            final int line = y * mWidth;
+            for(int x=0; x<mWidth; x++) {
+                sum += accumulation[line + x];
+                accumulation[line + x] = 0;
+                final float coverage = Math.min(Math.abs(sum), 1.0f);
+                if(coverage <= 0.5f / 255)
+                    continue;
+                int pixel = image == null ? solid : sampleBilinear(image, imageWidth, imageHeight,
+                        (x + 0.5f - mTransform[0]) * inverseScale, (y + 0.5f - mTransform[1]) * inverseScale);
+                if(gray != 255)
+                    pixel = multiply(pixel, gray);
+                out[line + x] = blend(out[line + x], scale(pixel, coverage));
+            }
+        }
+        // Spill past the last row
+        for(int i=bottom*mWidth; i<accumulation.length && i<bottom*mWidth+mWidth+4; i++)
+            accumulation[i] = 0;
+        Arrays.fill(accumulation, mWidth * mHeight, accumulation.length, 0);
+    }
+
+    /**
+     * Prepare vertices of the current frame
+     *
+     * @param radius In pixels, circles get enough vertices for it
+     * @return Number of vertices in {@link #mVertices}
+     */
+    private int prepareVertices(final float radius) {
+        if(mFrame.mOptimizedFrame == ProfileImageView.Frame.OPTIMIZED_FRAME_CIRCLE) {
+            final double step = Math.acos(Math.max(1.0 - CIRCLE_TOLERANCE / Math.max(radius, CIRCLE_TOLERANCE), -1.0)) * 2;
+            final int count = Math.max((int) Math.ceil(Math.PI * 2 / step), 8);
+            if(mVertices.length < count * 2)
+                mVertices = new float[count * 2];
+            // Same area as the circle, not inscribed
+            final double scale = Math.sqrt(Math.PI * 2 / (count * Math.sin(Math.PI * 2 / count)));
+            for(int i=0; i<count; i++) {
+                mVertices[i * 2] = (float) (Math.cos(Math.PI * 2 * i / count) * scale);
+                mVertices[i * 2 + 1] = (float) (Math.sin(Math.PI * 2 * i / count) * scale);
+            }
+            return count;
+        }
+        if(mFrame.mOptimizedFrame == ProfileImageView.Frame.OPTIMIZED_FRAME_SQUARE) {
+            if(mVertices.length < SQUARE_VERTICES.length)
+                mVertices = new float[SQUARE_VERTICES.length];
+            System.arraycopy(SQUARE_VERTICES, 0, mVertices, 0, SQUARE_VERTICES.length);
+            return 4;
+        }
+        final int count = mFrame.getVertexCount();
+        if(mVertices.length < count * 2)
+            mVertices = new float[count * 2];
+        return mFrame.copyVertices(mVertices);
+    }
+
+    /**
+     * Accumulate line<br>
+     *     Adds the signed area the edge covers to each cell, a running sum over a row gives the
+     *     exact coverage of the polygon.
+     *
+     * @param accumulation width * height + 4 cells
+     * @param width
+     * @param height
+     * @param x0
+     * @param y0
+     * @param x1
+     * @param y1
+     */
+    static void accumulateLine(final float[] accumulation, final int width, final int height,
+                               float x0, float y0, float x1, float y1) {
+        if(Math.abs(y0 - y1) <= 1e-6f)
+            return;
+        final float dir;
+        if(y0 < y1)
+            dir = 1.0f;
+        else {
+            dir = -1.0f;
+            float t = x0; x0 = x1; x1 = t;
+            t = y0; y0 = y1; y1 = t;
+        }
+        // Edges left or right of the buffer still count for the rows
+        x0 = Math.max(Math.min(x0, width), 0);
+        x1 = Math.max(Math.min(x1, width), 0);
+        final float dxdy = (x1 - x0) / (y1 - y0);
+        float x = x0;
+        if(y0 < 0)
+            x -= y0 * dxdy;
+        final int yStart = Math.max((int) y0, 0);
+        final int yEnd = Math.min(height, (int) Math.ceil(y1));
+        for(int y=yStart; y<yEnd; y++) {
+            final int line = y * width;
+            final float dy = Math.min(y + 1, y1) - Math.max(y, y0);
+            final float xNext = x + dxdy * dy;
+            final float d = dy * dir;
+            final float left = Math.min(x, xNext);
+            final float right = Math.max(x, xNext);
+            final float leftFloor = (float) Math.floor(left);
+            final int leftIndex = (int) leftFloor;
+            final float rightCeil = (float) Math.ceil(right);
+            final int rightIndex = (int) rightCeil;
+            if(rightIndex <= leftIndex + 1) {
+                final float middle = 0.5f * (x + xNext) - leftFloor;
+                accumulation[line + leftIndex] += d - d * middle;
+                accumulation[line + leftIndex + 1] += d * middle;
+            } else {
+                final float s = 1.0f / (right - left);
+                final float leftFraction = left - leftFloor;
+                final float a0 = 0.5f * s * (1 - leftFraction) * (1 - leftFraction);
+                final float rightFraction = right - rightCeil + 1;
+                final float am = 0.5f * s * rightFraction * rightFraction;
+                accumulation[line + leftIndex] += d * a0;
+                if(rightIndex == leftIndex + 2)
+                    accumulation[line + leftIndex + 1] += d * (1 - a0 - am);
+                else {
+                    final float a1 = s * (1.5f - leftFraction);
+                    accumulation[line + leftIndex + 1] += d * (a1 - a0);
+                    for(int xi=leftIndex+2; xi<rightIndex-1; xi++)
+                        accumulation[line + xi] += d * s;
+                    final float a2 = a1 + (rightIndex - leftIndex - 3) * s;
+                    accumulation[line + rightIndex - 1] += d * (1 - a2 - am);
+                }
+                accumulation[line + rightIndex] += d * am;
+            }
+            x = xNext;
+        }
+    }
+
+    /**
+     * Sample bilinear<br>
+     *     Edges are clamped, as the CLAMP shader of the view.
+     *
+     * @param image Not premultiplied
+     * @param width
+     * @param height
+     * @param u In image pixels
+     * @param v In image pixels
+     * @return Premultiplied
+     */
+    static int sampleBilinear(final int[] image, final int width, final int height, final float u, final float v) {
+        final float fx = Math.max(Math.min(u - 0.5f, width - 1), 0);
+        final float fy = Math.max(Math.min(v - 0.5f, height - 1), 0);
+        final int x0 = (int) fx;
+        final int y0 = (int) fy;
+        final int x1 = Math.min(x0 + 1, width - 1);
+        final int y1 = Math.min(y0 + 1, height - 1);
+        final float tx = fx - x0;
+        final float ty = fy - y0;
+        final int c00 = premultiply(image[y0 * width + x0]);
+        final int c10 = premultiply(image[y0 * width + x1]);
+        final int c01 = premultiply(image[y1 * width + x0]);
+        final int c11 = premultiply(image[y1 * width + x1]);
+        int result = 0;
+        for(int shift=0; shift<32; shift+=8) {
+            final float top = ((c00 >>> shift) & 0xFF) * (1 - tx) + ((c10 >>> shift) & 0xFF) * tx;
+            final float bottom = ((c01 >>> shift) & 0xFF) * (1 - tx) + ((c11 >>> shift) & 0xFF) * tx;
+            result |= Math.round(top * (1 - ty) + bottom * ty) << shift;
+        }
+        return result;
+    }
+
+    /**
+     * Premultiply
+     *
+     * @param color Not premultiplied
+     * @return
+     */
+    private static int premultiply(final int color) {
+        return premultiply(color, color >>> 24);
+    }
+
+    /**
+     * Premultiply with alpha
+     *
+     * @param color Rgb is used
+     * @param alpha
+     * @return
+     */
+    private static int premultiply(final int color, final int alpha) {
+        final int r = (((color >> 16) & 0xFF) * alpha + 127) / 255;
+        final int g = (((color >> 8) & 0xFF) * alpha + 127) / 255;
+        final int b = ((color & 0xFF) * alpha + 127) / 255;
+        return (alpha << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Multiply rgb by gray
+     *
+     * @param color Premultiplied
+     * @param gray
+     * @return
+     */
+    private static int multiply(final int color, final int gray) {
+        final int r = (((color >> 16) & 0xFF) * gray + 127) / 255;
+        final int g = (((color >> 8) & 0xFF) * gray + 127) / 255;
+        final int b = ((color & 0xFF) * gray + 127) / 255;
+        return (color & 0xFF000000) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Scale by coverage
+     *
+     * @param color Premultiplied
+     * @param coverage
+     * @return
+     */
+    private static int scale(final int color, final float coverage) {
+        if(coverage >= 1.0f)
+            return color;
+        final int c = Math.round(coverage * 256);
+        final int a = ((color >>> 24) * c) >> 8;
+        final int r = (((color >> 16) & 0xFF) * c) >> 8;
+        final int g = (((color >> 8) & 0xFF) * c) >> 8;
+        final int b = ((color & 0xFF) * c) >> 8;
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Blend source over
+     *
+     * @param dst Premultiplied
+     * @param src Premultiplied
+     * @return
+     */
+    private static int blend(final int dst, final int src) {
+        final int inverse = 255 - (src >>> 24);
+        if(inverse == 0)
+            return src;
+        final int a = (src >>> 24) + ((dst >>> 24) * inverse + 127) / 255;
+        final int r = ((src >> 16) & 0xFF) + (((dst >> 16) & 0xFF) * inverse + 127) / 255;
+        final int g = ((src >> 8) & 0xFF) + (((dst >> 8) & 0xFF) * inverse + 127) / 255;
+        final int b = (src & 0xFF) + ((dst & 0xFF) * inverse + 127) / 255;
+        return (Math.min(a, 255) << 24) | (Math.min(r, 255) << 16) | (Math.min(g, 255) << 8) | Math.min(b, 255);
+    }
+
+    /**
+     * Unpremultiply in place
+     *
+     * @param pixels
+     * @param count
+     */
+    private static void unpremultiply(final int[] pixels, final int count) {
+        for(int i=0; i<count; i++) {
+            final int color = pixels[i];
+            final int a = color >>> 24;
+            if(a == 0 || a == 255)
+                continue;
+            final int r = Math.min((((color >> 16) & 0xFF) * 255 + a / 2) / a, 255);
+            final int g = Math.min((((color >> 8) & 0xFF) * 255 + a / 2) / a, 255);
+            final int b = Math.min(((color & 0xFF) * 255 + a / 2) / a, 255);
+            pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+        }
+    }
+}
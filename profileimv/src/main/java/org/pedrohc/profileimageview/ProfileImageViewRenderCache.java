@@ -0,0 +1,252 @@
+package org.pedrohc.profileimageview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.LruCache;
+
+import java.lang.ref.WeakReference;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Trimmed and cleared bitmaps are not recycled, views may still be drawing them.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewRenderCache {
+
+    // Consts
+    final private static int DEFAULT_MAX_SIZE = 8 * 1024 * 1024; /** bytes */
+
+    // Shared instance
+    final private static ProfileImageViewRenderCache sInstance = new ProfileImageViewRenderCache(DEFAULT_MAX_SIZE);
+
+    // Final Private Variables
+    final private LruCache<RenderKey, Bitmap> mCache;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize In bytes
+     */
+    private ProfileImageViewRenderCache(final int maxSize) {
+        mCache = new LruCache<RenderKey, Bitmap>(maxSize) {
+            @Override
+            protected int sizeOf(final RenderKey key, final Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Get shared instance
+     *
+     * @return
+     */
+    public static ProfileImageViewRenderCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Get Render<br>
+     *     Returns the composited avatar of the view, drawn once per (image, frame, theme, size, state)
+     *     and shared by every view that looks the same. Do not recycle or change the returned bitmap.
+     *
+     * @param view
+     * @param renderer Draws the avatar on a miss
+     * @return
+     */
+    Bitmap get(final ProfileImageView view, final Renderer renderer) {
+        final int width = view.getWidth();
+        final int height = view.getHeight();
+        if(width <= 0 || height <= 0)
+            return null;
+        final RenderKey key = new RenderKey(view);
+        Bitmap render = mCache.get(key);
+        if(render == null) {
+            render = ProfileImageViewBitmapPool.getInstance().get(width, height, Bitmap.Config.ARGB_8888);
+            renderer.render(new Canvas(render));
+            mCache.put(key, render);
+        }
+        return render;
+    }
+
+    /**
+     * Renderer
+     */
+    interface Renderer {
+
+        /**
+         * Render the avatar
+         *
+         * @param canvas Cleared canvas of the view size
+         */
+        void render(Canvas canvas);
+    }
+
+    /**
+     * Set max size
+     *
+     * @param maxSize In bytes
+     */
+    public void setMaxSize(final int maxSize) {
+        if(maxSize <= 0)
+            throw new ProfileImageViewException("Set a valid size.");
+        mCache.resize(maxSize);
+    }
+
+    /**
+     * Trim to size
+     *
+     * @param maxSize In bytes
+     */
+    public void trimToSize(final int maxSize) {
+        ProfileImageViewUtils.trimLruCache(mCache, maxSize);
+    }
+
+    /**
+     * Get max size
+     *
+     * @return In bytes
+     */
+    public int getMaxSize() {
+        return mCache.maxSize();
+    }
+
+    /**
+     * Get byte size
+     *
+     * @return
+     */
+    public int getByteSize() {
+        return mCache.size();
+    }
+
+    /**
+     * Get hit count
+     *
+     * @return
+     */
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * Get miss count
+     *
+     * @return
+     */
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * Get eviction count
+     *
+     * @return
+     */
+    public int getEvictionCount() {
+        return mCache.evictionCount();
+    }
+
+    /**
+     * Clear
+     */
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Render Key<br>
+     *     Everything that changes the pixels of a PORTRAIT avatar. The image is compared by identity
+     *     and generation, so a pooled bitmap decoded again never matches an old render.
+     */
+    final private static class RenderKey {
+
+        // Final Private Variables
+        final private WeakReference<Bitmap> mImage;
+        final private int mImageGeneration;
+        final private ProfileImageView.Frame mFrame;
+        final private ProfileImageView.Theme mTheme;
+        final private int mWidth;
+        final private int mHeight;
+        final private int mPaddingLeft;
+        final private int mPaddingTop;
+        final private int mPaddingRight;
+        final private int mPaddingBottom;
+        final private int mState;
+        final private float mDensity;
+        final private int mHash;
+
+        /**
+         * Constructor
+         *
+         * @param view
+         */
+        private RenderKey(final ProfileImageView view) {
+            final Bitmap image = view.getRenderImage();
+            mImage = image == null ? null : new WeakReference<>(image);
+            mImageGeneration = image == null ? 0 : image.getGenerationId();
+            mFrame = view.getFrame();
+            mTheme = view.getTheme();
+            mWidth = view.getWidth();
+            mHeight = view.getHeight();
+            mPaddingLeft = view.getPaddingLeft();
+            mPaddingTop = view.getPaddingTop();
+            mPaddingRight = view.getPaddingRight();
+            mPaddingBottom = view.getPaddingBottom();
+            mState = view.getRenderState();
+            mDensity = view.getResources().getDisplayMetrics().density;
+            int hash = image == null ? 0 : System.identityHashCode(image);
+            hash = 31 * hash + mImageGeneration;
+            hash = 31 * hash + mFrame.hashCode();
+            hash = 31 * hash + mTheme.hashCode();
+            hash = 31 * hash + mWidth;
+            hash = 31 * hash + mHeight;
+            hash = 31 * hash + mPaddingLeft;
+            hash = 31 * hash + mPaddingTop;
+            hash = 31 * hash + mPaddingRight;
+            hash = 31 * hash + mPaddingBottom;
+            hash = 31 * hash + mState;
+            hash = 31 * hash + Float.floatToIntBits(mDensity);
+            mHash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof RenderKey))
+                return false;
+            final RenderKey key = (RenderKey) o;
+            if(mHash != key.mHash || mWidth != key.mWidth || mHeight != key.mHeight || mState != key.mState ||
+                    mImageGeneration != key.mImageGeneration || mDensity != key.mDensity ||
+                    mPaddingLeft != key.mPaddingLeft || mPaddingTop != key.mPaddingTop ||
+                    mPaddingRight != key.mPaddingRight || mPaddingBottom != key.mPaddingBottom)
+                return false;
+            final Bitmap image = mImage == null ? null : mImage.get();
+            final Bitmap otherImage = key.mImage == null ? null : key.mImage.get();
+            // A collected image never matches again
+            if(image != otherImage || (image == null && (mImage != null || key.mImage != null)))
+                return false;
+            return mFrame.equals(key.mFrame) && mTheme.equals(key.mTheme);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.pedrohc.profileimageview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.LruCache;
+
+/**
+ *  Copyright - Pedro H. Chaves
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Trimmed and cleared bitmaps are not recycled, views may still be drawing them.
+ *
+ * Created by Pedro on 18/03/2016.
+ */
+final public class ProfileImageViewShadowCache {
+
+    // Consts
+    final private static int DEFAULT_MAX_SIZE = 4 * 1024 * 1024; /** bytes */
+
+    // Shared instance
+    final private static ProfileImageViewShadowCache sInstance = new ProfileImageViewShadowCache(DEFAULT_MAX_SIZE);
+
+    // Final Private Variables
+    final private LruCache<ShadowKey, Bitmap> mCache;
+
+    /**
+     * Constructor
+     *
+     * @param maxSize In bytes
+     */
+    private ProfileImageViewShadowCache(final int maxSize) {
+        mCache = new LruCache<ShadowKey, Bitmap>(maxSize) {
+            @Override
+            protected int sizeOf(final ShadowKey key, final Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Get shared instance
+     *
+     * @return
+     */
+    public static ProfileImageViewShadowCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Get Shadow<br>
+     *     The shadow bitmap has {@link ProfileImageViewUtils#calculateShadowPadding(int)} pixels of padding around the frame.
+     *     Shadows are shared, do not recycle or change the returned bitmap.
+     *
+     * @param frame
+     * @param size Frame size in pixels
+     * @param blurRadius Box blur radius in pixels
+     * @param color Shadow color
+     * @return
+     */
+    Bitmap get(final ProfileImageView.Frame frame, final int size, final int blurRadius, final int color) {
+        if(size <= 0)
+            return null;
+        final ShadowKey lookup = new ShadowKey(frame, size, blurRadius, color);
+        Bitmap shadow = mCache.get(lookup);
+        if(shadow == null) {
+            shadow = render(frame, size, blurRadius, color);
+            // Keep a copy of the frame, the key must not change
+            mCache.put(new ShadowKey(frame.clone(), size, blurRadius, color), shadow);
+        }
+        return shadow;
+    }
+
+    /**
+     * Render shadow
+     *
+     * @param frame
+     * @param size
+     * @param blurRadius
+     * @param color
+     * @return
+     */
+    private static Bitmap render(final ProfileImageView.Frame frame, final int size, final int blurRadius, final int color) {
+        final int padding = ProfileImageViewUtils.calculateShadowPadding(blurRadius);
+        final int bitmapSize = size + padding * 2;
+        final Bitmap shadow = Bitmap.createBitmap(bitmapSize, bitmapSize, Bitmap.Config.ARGB_8888);
+        // Rasterize mask
+        final Canvas canvas = new Canvas(shadow);
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setColor(Color.BLACK);
+        final float radius = size / 2.0f;
+        final float center = padding + radius;
+        if(frame.mOptimizedFrame == ProfileImageView.Frame.OPTIMIZED_FRAME_CIRCLE)
+            canvas.drawCircle(center, center, radius, paint);
+        else if(frame.mOptimizedFrame == ProfileImageView.Frame.OPTIMIZED_FRAME_SQUARE)
+            canvas.drawRect(padding, padding, padding + size, padding + size, paint);
+        else {
+            final Path path = new Path();
+            frame.makePath(path, radius, center, center);
+            canvas.drawPath(path, paint);
+        }
+        // Blur alpha
+        final int[] pixels = new int[bitmapSize * bitmapSize];
+        shadow.getPixels(pixels, 0, bitmapSize, 0, 0, bitmapSize, bitmapSize);
+        for(int i=0; i<pixels.length; i++)
+            pixels[i] = pixels[i] >>> 24;
+        ProfileImageViewBlur.blur(pixels, bitmapSize, bitmapSize, blurRadius, ProfileImageViewBlur.DEFAULT_PASSES);
+        // Colorize
+        final int colorAlpha = Color.alpha(color);
+        final int rgb = color & 0x00FFFFFF;
+        for(int i=0; i<pixels.length; i++)
+            pixels[i] = (((pixels[i] * colorAlpha + 127) / 255) << 24) | rgb;
+        shadow.setPixels(pixels, 0, bitmapSize, 0, 0, bitmapSize, bitmapSize);
+        return shadow;
+    }
+
+    /**
+     * Set max size
+     *
+     * @param maxSize In bytes
+     */
+    public void setMaxSize(final int maxSize) {
+        if(maxSize <= 0)
+            throw new ProfileImageViewException("Set a valid size.");
+        mCache.resize(maxSize);
+    }
+
+    /**
+     * Trim to size
+     *
+     * @param maxSize In bytes
+     */
+    public void trimToSize(final int maxSize) {
+        ProfileImageViewUtils.trimLruCache(mCache, maxSize);
+    }
+
+    /**
+     * Get max size
+     *
+     * @return In bytes
+     */
+    public int getMaxSize() {
+        return mCache.maxSize();
+    }
+
+    /**
+     * Get byte size
+     *
+     * @return
+     */
+    public int getByteSize() {
+        return mCache.size();
+    }
+
+    /**
+     * Get hit count
+     *
+     * @return
+     */
+    public int getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * Get miss count
+     *
+     * @return
+     */
+    public int getMissCount() {
+        return mCache.missCount();
+    }
+
+    /**
+     * Get eviction count
+     *
+     * @return
+     */
+    public int getEvictionCount() {
+        return mCache.evictionCount();
+    }
+
+    /**
+     * Clear
+     */
+    public void clear() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Shadow Key
+     */
+    final private static class ShadowKey {
+
+        // Final Private Variables
+        final private ProfileImageView.Frame mFrame;
+        final private int mSize;
+        final private int mBlurRadius;
+        final private int mColor;
+        final private int mHash;
+
+        /**
+         * Constructor
+         *
+         * @param frame
+         * @param size
+         * @param blurRadius
+         * @param color
+         */
+        private ShadowKey(final ProfileImageView.Frame frame, final int size, final int blurRadius, final int color) {
+            mFrame = frame;
+            mSize = size;
+            mBlurRadius = blurRadius;
+            mColor = color;
+            int hash = frame.hashCode();
+            hash = 31 * hash + size;
+            hash = 31 * hash + blurRadius;
+            hash = 31 * hash + color;
+            mHash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return mHash;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof ShadowKey))
+                return false;
+            final ShadowKey key = (ShadowKey) o;
+            return mSize == key.mSize && mBlurRadius == key.mBlurRadius && mColor == key.mColor && mFrame.equals(key.mFrame);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package org.pedrohc.profileimageview;
 
+import android.annotation.TargetApi;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Build;
+import android.util.LruCache;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,6 +31,9 @@ import java.util.List;
  */
 final public class ProfileImageViewUtils {
 
+    // Consts
+    final static float CURVE_TOLERANCE = 0.001f; /** Flattening deviation in frame units, 0.1px at 100px radius */
+
     /** Private Constructor */
     private ProfileImageViewUtils() {}
 
@@ -37,79 +44,308 @@ final public class ProfileImageViewUtils {
      * @return
      */
     public static Bitmap decodeFromResource(final Resources resources, final int resId) {
+        return decodeFromResource(resources, resId, 0);
+    }
+
+    /**
+     * Decode from Resource<br>
+     *     The image is subsampled while decoding and then scaled down to the target size, so the
+     *     memory used is proportional to the displayed size and not to the source size.
+     *
+     * @param resId
+     * @param targetSize Displayed size in pixels, 0 to decode at full resolution
+     * @return
+     */
+    public static Bitmap decodeFromResource(final Resources resources, final int resId, final int targetSize) {
+        final ProfileImageViewMetrics metrics = ProfileImageViewMetrics.getInstance();
+        final long start = metrics.begin(ProfileImageViewMetrics.TIMER_DECODE);
+        try {
+            final Bitmap bitmap = decode(resources, resId, targetSize);
+            if(bitmap != null)
+                metrics.count(ProfileImageViewMetrics.COUNTER_BITMAPS_DECODED);
+            return bitmap;
+        } finally {
+            metrics.end(null, ProfileImageViewMetrics.TIMER_DECODE, start);
+        }
+    }
+
+    /**
+     * Decode
+     *
+     * @param resources
+     * @param resId
+     * @param targetSize
+     * @return
+     */
+    private static Bitmap decode(final Resources resources, final int resId, final int targetSize) {
         // Decode
+        final ProfileImageViewBitmapPool pool = ProfileImageViewBitmapPool.getInstance();
         final BitmapFactory.Options options = new BitmapFactory.Options();
-        Bitmap bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        if(targetSize > 0) {
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeResource(resources, resId, options);
+            if(options.outWidth <= 0 || options.outHeight <= 0)
+                return null;
+            options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, targetSize);
+            options.inJustDecodeBounds = false;
+            // Decode into a pooled bitmap, any large enough bitmap can be reused since KitKat
+            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                final int sampledWidth = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+                final int sampledHeight = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+                options.inMutable = true;
+                options.inBitmap = pool.getReusable(sampledWidth, sampledHeight, Bitmap.Config.ARGB_8888);
+            }
+        }
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        } catch (IllegalArgumentException e) {
+            // The pooled bitmap could not be reused
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        }
         // If not decoded
-        if(bitmap == null)
+        if(bitmap == null) {
+            pool.put(options.inBitmap);
             return null;
+        }
         // Correct Aspect and CLAMP
         final int width = bitmap.getWidth();
         final int height = bitmap.getHeight();
-        final int size = Math.max(width, height);
-        final Bitmap corrected = Bitmap.createBitmap(size+2, size+2, Bitmap.Config.ARGB_8888);
+        final int sourceSize = Math.max(width, height);
+        final int size = targetSize > 0 ? Math.min(sourceSize, targetSize) : sourceSize;
+        final Bitmap corrected = pool.get(size+2, size+2, Bitmap.Config.ARGB_8888);
         final Canvas correctedCanvas = new Canvas(corrected);
-        correctedCanvas.drawBitmap(bitmap, (size - width) / 2 + 1, (size - height) / 2 + 1, null);
-        bitmap.recycle();
+        if(size == sourceSize)
+            correctedCanvas.drawBitmap(bitmap, (size - width) / 2 + 1, (size - height) / 2 + 1, null);
+        else {
+            // High quality downscale
+            final float scale = (size * 1.0f) / sourceSize;
+            final float scaledWidth = width * scale;
+            final float scaledHeight = height * scale;
+            final float left = (size - scaledWidth) / 2 + 1;
+            final float top = (size - scaledHeight) / 2 + 1;
+            final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+            correctedCanvas.drawBitmap(bitmap, null, new RectF(left, top, left + scaledWidth, top + scaledHeight), paint);
+        }
+        pool.put(bitmap);
         bitmap = corrected;
         //
         return bitmap;
     }
 
+    /**
+     * Calculate In Sample Size<br>
+     *     Largest power of two that keeps the longest side at or above the target size.
+     *
+     * @param width Source width
+     * @param height Source height
+     * @param targetSize Displayed size in pixels, 0 to decode at full resolution
+     * @return
+     */
+    public static int calculateInSampleSize(final int width, final int height, final int targetSize) {
+        if(targetSize <= 0)
+            return 1;
+        final int size = Math.max(width, height);
+        int sampleSize = 1;
+        while(size / (sampleSize * 2) >= targetSize)
+            sampleSize *= 2;
+        return sampleSize;
+    }
+
+    /**
+     * Calculate Image Transform<br>
+     *     Places the image inside the frame, as the photo shader of the view.
+     *
+     * @param viewWidth
+     * @param viewHeight
+     * @param paddingLeft
+     * @param paddingTop
+     * @param paddingRight
+     * @param paddingBottom
+     * @param borderRadius 0 without border
+     * @param shadowRadius 0 without shadow
+     * @param imageWidth Decoded images have one pixel of margin on each side
+     * @param theme
+     * @param scaleMode
+     * @param centerSquareScale Of the frame
+     * @param out Receives translate x, translate y and scale
+     */
+    static void calculateImageTransform(final int viewWidth, final int viewHeight, final int paddingLeft, final int paddingTop,
+                                        final int paddingRight, final int paddingBottom, final float borderRadius, final float shadowRadius,
+                                        final int imageWidth, final ProfileImageView.Theme theme, final ProfileImageView.ScaleMode scaleMode,
+                                        final float centerSquareScale, final float[] out) {
+        final float ms1 = borderRadius + shadowRadius;
+        final float ms2 = ms1 * 2;
+        final float width = viewWidth - ms2 - paddingLeft - paddingRight;
+        final float height = viewHeight - ms2 - paddingBottom - paddingTop;
+        final float size = Math.min(width, height) - shadowRadius * 2;
+        final float scaleImage = (size * 1.0f) / (imageWidth - 2);
+        float scaleContent = theme.imageScale;
+        if(scaleMode == ProfileImageView.ScaleMode.CENTER)
+            scaleContent *= centerSquareScale;
+        final float finalScale = scaleImage * scaleContent;
+        float c = Math.abs((size * scaleContent - size) / 2);
+        if(scaleContent < 1.0f)
+            c = 0;
+        final float imageSize = size * scaleContent;
+        final float imageScrollX = Math.max(Math.min(theme.imageScrollX * c, c), -c) + (width - imageSize) / 2 + paddingLeft - finalScale;
+        final float imageScrollY = Math.max(Math.min(theme.imageScrollY * c, c), -c) + (height - imageSize) / 2 + paddingTop - shadowRadius - finalScale;
+        out[0] = imageScrollX + ms1;
+        out[1] = imageScrollY + ms1;
+        out[2] = finalScale;
+    }
+
+    /**
+     * Calculate decode size
+     *
+     * @param contentWidth View width without padding, 0 if unknown
+     * @param contentHeight View height without padding, 0 if unknown
+     * @param theme Null for the default image scale
+     * @return Displayed image size in pixels, 0 if unknown
+     */
+    static int calculateDecodeSize(final int contentWidth, final int contentHeight, final ProfileImageView.Theme theme) {
+        if(contentWidth <= 0 && contentHeight <= 0)
+            return 0;
+        // One side unknown, eg: wrap_content in a horizontal LinearLayout
+        final int contentSize = contentWidth <= 0 ? contentHeight : contentHeight <= 0 ? contentWidth : Math.min(contentWidth, contentHeight);
+        final float imageScale = theme == null ? 1.0f : Math.max(theme.imageScale, 1.0f);
+        return (int) Math.ceil(contentSize * imageScale);
+    }
+
+    /**
+     * Calculate shadow radius
+     *
+     * @param density
+     * @return Space taken by the shadow on each side, in pixels
+     */
+    static float calculateShadowRadius(final float density) {
+        return 2.0f * density;
+    }
+
+    /**
+     * Calculate shadow blur radius
+     *
+     * @param density
+     * @return Box blur radius in pixels
+     */
+    static int calculateShadowBlurRadius(final float density) {
+        return ProfileImageViewBlur.calculateBoxRadius(ProfileImageView.DEFAULT_SHADOW_BLUR * density * ProfileImageView.BLUR_SIGMA_SCALE + 0.5f,
+                ProfileImageViewBlur.DEFAULT_PASSES);
+    }
+
+    /**
+     * Calculate shadow size<br>
+     *     Same size as drawn by the view, so the cached shadow can be rendered ahead.
+     *
+     * @param contentSize Smaller side of the view without padding, in pixels
+     * @param density
+     * @return Frame size of the shadow in pixels
+     */
+    static int calculateShadowSize(final int contentSize, final float density) {
+        return Math.round((contentSize / 2.0f - calculateShadowRadius(density) * 2) * 2);
+    }
+
+    /**
+     * Calculate shadow padding
+     *
+     * @param blurRadius
+     * @return Pixels around the frame reached by the blur
+     */
+    static int calculateShadowPadding(final int blurRadius) {
+        return blurRadius * ProfileImageViewBlur.DEFAULT_PASSES + 1;
+    }
+
+    /**
+     * Is outline shadow<br>
+     *     Convex frames on Lollipop and above cast the shadow through the view outline, the others
+     *     draw a bitmap from {@link ProfileImageViewShadowCache}.
+     *
+     * @param frame
+     * @param sdkInt Usually {@link Build.VERSION#SDK_INT}
+     * @return
+     */
+    static boolean isOutlineShadow(final ProfileImageView.Frame frame, final int sdkInt) {
+        return sdkInt >= Build.VERSION_CODES.LOLLIPOP && frame.isConvex();
+    }
+
     /**
      * Calculate Center Scale
      * @param vertices
      * @return
      */
     public static float calculateCenterScale(final List<ProfileImageView.Frame.FrameVertex> vertices) {
-        final ProfileImageView.Frame.FrameVertex centroid = calculateFrameCentroid(vertices);
-        float cx = centroid.x * 100;
-        float cy = centroid.y * 100;
-        float minusCenterDistance = 100.0f;
-        float centerScale = 100.0f;
-        for(int i=0; i<vertices.size(); i++) {
-            ProfileImageView.Frame.FrameVertex a;
-            ProfileImageView.Frame.FrameVertex b;
-            if(i == vertices.size() - 1) {
-                a = vertices.get(i);
-                b = vertices.get(0);
-            } else {
-                a = vertices.get(i);
-                b = vertices.get(i + 1);
-            }
-            float ax = a.x * 100;
-            float ay = a.y * 100;
-            float bx = b.x * 100;
-            float by = b.y * 100;
-            float dx = bx - ax;
-            float dy = by - ay;
-            float d = (float)Math.hypot(dy, dx);
-            for(float j=0; j<d; j++) {
-                float x = ax + (j / d) * dx;
-                float y = ay + (j / d) * dy;
-                float dcx = x - cx;
-                float dcy = y - cy;
-                float dc = (float)Math.hypot(dcy, dcx);
-                if(dc < minusCenterDistance) {
-                    minusCenterDistance = dc;
-                    centerScale = Math.min(Math.abs(dcx), Math.abs(dcy));
-                }
-            }
+        return calculateCenterScale(toArray(vertices), vertices.size());
+    }
+
+    /**
+     * Calculate Center Scale<br>
+     *     Half side of the axis-aligned square inscribed in the largest circle centered on the
+     *     centroid, the same measure used by the native frames. O(n), exact distances.
+     *
+     * @param vertices Interleaved x/y
+     * @param count Number of vertices
+     * @return
+     */
+    public static float calculateCenterScale(final float[] vertices, final int count) {
+        if(count < 3)
+            return 0;
+        final float[] centroid = new float[2];
+        calculateFrameCentroid(vertices, count, centroid);
+        final float cx = centroid[0];
+        final float cy = centroid[1];
+        // Distances are never above 1, the frame fits in [-1, 1]
+        float minDistanceSquared = 1.0f;
+        for(int i=0; i<count; i++) {
+            final int a = i * 2;
+            final int b = i == count - 1 ? 0 : a + 2;
+            final float distanceSquared = calculateSegmentDistanceSquared(cx, cy,
+                    vertices[a], vertices[a + 1], vertices[b], vertices[b + 1]);
+            if(distanceSquared < minDistanceSquared)
+                minDistanceSquared = distanceSquared;
         }
-        return Math.abs((minusCenterDistance / 100.0f) * (float)Math.cos(Math.PI / 4));
+        return (float) (Math.sqrt(minDistanceSquared) * Math.cos(Math.PI / 4));
+    }
+
+    /**
+     * Calculate squared distance from a point to a segment
+     *
+     * @param px
+     * @param py
+     * @param ax
+     * @param ay
+     * @param bx
+     * @param by
+     * @return
+     */
+    static float calculateSegmentDistanceSquared(final float px, final float py, final float ax, final float ay, final float bx, final float by) {
+        final float dx = bx - ax;
+        final float dy = by - ay;
+        final float lengthSquared = dx * dx + dy * dy;
+        float t = 0;
+        if(lengthSquared > 0)
+            t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        final float x = ax + t * dx - px;
+        final float y = ay + t * dy - py;
+        return x * x + y * y;
     }
 
     /**
      * Calc Triangle Area
-     * @param v1
+     * @param vertices
+     * @param v1 Index of the first vertex
      * @param v2
      * @param v3
      * @return
      */
-    private static float calculateTriangleArea(ProfileImageView.Frame.FrameVertex v1, ProfileImageView.Frame.FrameVertex v2, ProfileImageView.Frame.FrameVertex v3 ) {
-        float d1 = v1.x * v2.y + v1.y * v3.x + v2.x * v3.y;
-        float d2 = v1.x * v3.y + v1.y * v2.x + v2.y * v3.x;
-        return (float)Math.abs( ( d1 - d2 ) / 2 );
+    private static float calculateTriangleArea(final float[] vertices, final int v1, final int v2, final int v3) {
+        final float x1 = vertices[v1 * 2], y1 = vertices[v1 * 2 + 1];
+        final float x2 = vertices[v2 * 2], y2 = vertices[v2 * 2 + 1];
+        final float x3 = vertices[v3 * 2], y3 = vertices[v3 * 2 + 1];
+        float d1 = x1 * y2 + y1 * x3 + x2 * y3;
+        float d2 = x1 * y3 + y1 * x2 + y2 * x3;
+        return Math.abs((d1 - d2) / 2);
     }
 
     /**
@@ -117,37 +353,76 @@ final public class ProfileImageViewUtils {
      * @param vertices
      */
     public static ProfileImageView.Frame.FrameVertex calculateFrameCentroid(final List<ProfileImageView.Frame.FrameVertex> vertices) {
-        if(vertices.size() == 0)
-            return new ProfileImageView.Frame.FrameVertex(0, 0);
-        if(vertices.size() == 1)
-            return vertices.get(0).clone();
-        if(vertices.size() == 2) {
-            final ProfileImageView.Frame.FrameVertex a = vertices.get(0);
-            final ProfileImageView.Frame.FrameVertex b = vertices.get(1);
-            return new ProfileImageView.Frame.FrameVertex((a.x + b.x) / 2, (a.y + b.y) / 2);
-        }
-        if(vertices.size() == 3) {
-            final ProfileImageView.Frame.FrameVertex a = vertices.get(0);
-            final ProfileImageView.Frame.FrameVertex b = vertices.get(1);
-            final ProfileImageView.Frame.FrameVertex c = vertices.get(2);
-            return new ProfileImageView.Frame.FrameVertex((a.x + b.x + c.x) / 3, (a.y + b.y + c.y) / 3);
-        }
-        final List<ProfileImageView.Frame.FrameVertex> centroids = new ArrayList<>();
+        final float[] centroid = new float[2];
+        calculateFrameCentroid(toArray(vertices), vertices.size(), centroid);
+        return new ProfileImageView.Frame.FrameVertex(centroid[0], centroid[1]);
+    }
+
+    /**
+     * Calculate frame centroid
+     *
+     * @param vertices Interleaved x/y
+     * @param count Number of vertices
+     * @param out Receives x and y
+     */
+    public static void calculateFrameCentroid(final float[] vertices, final int count, final float[] out) {
+        if(count == 0) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+        if(count <= 3) {
+            float x = 0;
+            float y = 0;
+            for(int i=0; i<count; i++) {
+                x += vertices[i * 2];
+                y += vertices[i * 2 + 1];
+            }
+            out[0] = x / count;
+            out[1] = y / count;
+            return;
+        }
         float smxSum = 0;
         float smySum = 0;
         float areaSum = 0;
-        for(int i=1; i<vertices.size()-1; i+=1) {
-            ProfileImageView.Frame.FrameVertex a = vertices.get(0);
-            ProfileImageView.Frame.FrameVertex b = vertices.get(i);
-            ProfileImageView.Frame.FrameVertex c = vertices.get(i+1);
-            float area = calculateTriangleArea(a, b, c);
-            float cx = (a.x + b.x + c.x) / 3;
-            float cy = (a.y + b.y + c.y) / 3;
+        for(int i=1; i<count-1; i+=1) {
+            float area = calculateTriangleArea(vertices, 0, i, i + 1);
+            float cx = (vertices[0] + vertices[i * 2] + vertices[i * 2 + 2]) / 3;
+            float cy = (vertices[1] + vertices[i * 2 + 1] + vertices[i * 2 + 3]) / 3;
             smxSum  += cx * area;
             smySum  += cy * area;
             areaSum += area;
         }
-        return new ProfileImageView.Frame.FrameVertex((float)(smxSum/areaSum), (float)(smySum/areaSum));
+        out[0] = smxSum / areaSum;
+        out[1] = smySum / areaSum;
+    }
+
+    /**
+     * Calculate Bounds
+     *
+     * @param vertices Interleaved x/y
+     * @param count Number of vertices
+     * @param out Receives left, top, right and bottom
+     */
+    public static void calculateBounds(final float[] vertices, final int count, final float[] out) {
+        float minX = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for(int i=0; i<count*2; i+=2) {
+            final float x = vertices[i];
+            final float y = vertices[i + 1];
+            if(x < minX) minX = x;
+            if(x > maxX) maxX = x;
+            if(y < minY) minY = y;
+            if(y > maxY) maxY = y;
+        }
+        if(count == 0)
+            minX = maxX = minY = maxY = 0;
+        out[0] = minX;
+        out[1] = minY;
+        out[2] = maxX;
+        out[3] = maxY;
     }
 
     /**
@@ -156,17 +431,9 @@ final public class ProfileImageViewUtils {
      * @return
      */
     public static ProfileImageView.Frame.FrameVertex calculateCenter(final List<ProfileImageView.Frame.FrameVertex> vertices) {
-        float minX = Float.MAX_VALUE;
-        float maxX = Float.MIN_VALUE;
-        float minY = Float.MAX_VALUE;
-        float maxY = Float.MIN_VALUE;
-        for(final ProfileImageView.Frame.FrameVertex vertex : vertices) {
-            minX = Math.min(minX, vertex.x);
-            maxX = Math.max(maxX, vertex.x);
-            minY = Math.min(minY, vertex.y);
-            maxY = Math.max(maxY, vertex.y);
-        }
-        return new ProfileImageView.Frame.FrameVertex((maxX + minX) / 2, (maxY + minY) / 2);
+        final float[] bounds = new float[4];
+        calculateBounds(toArray(vertices), vertices.size(), bounds);
+        return new ProfileImageView.Frame.FrameVertex((bounds[2] + bounds[0]) / 2, (bounds[3] + bounds[1]) / 2);
     }
 
     /**
@@ -174,13 +441,9 @@ final public class ProfileImageViewUtils {
      * @return
      */
     public static float calculateWidth(final List<ProfileImageView.Frame.FrameVertex> vertices) {
-        float minX = Float.MAX_VALUE;
-        float maxX = Float.MIN_VALUE;
-        for(final ProfileImageView.Frame.FrameVertex vertex : vertices) {
-            minX = Math.min(minX, vertex.x);
-            maxX = Math.max(maxX, vertex.x);
-        }
-        return maxX - minX;
+        final float[] bounds = new float[4];
+        calculateBounds(toArray(vertices), vertices.size(), bounds);
+        return bounds[2] - bounds[0];
     }
 
     /**
@@ -188,12 +451,396 @@ final public class ProfileImageViewUtils {
      * @return
      */
     public static float calculateHeight(final List<ProfileImageView.Frame.FrameVertex> vertices) {
-        float minY = Float.MAX_VALUE;
-        float maxY = Float.MIN_VALUE;
-        for(final ProfileImageView.Frame.FrameVertex vertex : vertices) {
-            minY = Math.min(minY, vertex.y);
-            maxY = Math.max(maxY, vertex.y);
+        final float[] bounds = new float[4];
+        calculateBounds(toArray(vertices), vertices.size(), bounds);
+        return bounds[3] - bounds[1];
+    }
+
+    /**
+     * Return true if the polygon is convex
+     *
+     * @param vertices
+     * @return
+     */
+    public static boolean isConvex(final List<ProfileImageView.Frame.FrameVertex> vertices) {
+        return isConvex(toArray(vertices), vertices.size());
+    }
+
+    /**
+     * Return true if the polygon is convex<br>
+     *     Collinear vertices are accepted, the winding may be clockwise or counter-clockwise.
+     *
+     * @param vertices Interleaved x/y
+     * @param count Number of vertices
+     * @return
+     */
+    public static boolean isConvex(final float[] vertices, final int count) {
+        if(count < 3)
+            return false;
+        int sign = 0;
+        for(int i=0; i<count; i++) {
+            final int a = i * 2;
+            final int b = ((i + 1) % count) * 2;
+            final int c = ((i + 2) % count) * 2;
+            final float cross = (vertices[b] - vertices[a]) * (vertices[c + 1] - vertices[b + 1]) -
+                    (vertices[b + 1] - vertices[a + 1]) * (vertices[c] - vertices[b]);
+            if(cross == 0)
+                continue;
+            final int crossSign = cross > 0 ? 1 : -1;
+            if(sign == 0)
+                sign = crossSign;
+            else if(sign != crossSign)
+                return false;
+        }
+        return sign != 0;
+    }
+
+    /**
+     * Simplify Polygon<br>
+     *     Ramer-Douglas-Peucker on the closed outline, no vertex moves more than the tolerance
+     *     away from the simplified edges. At least 3 vertices are kept.
+     *
+     * @param vertices Interleaved x/y
+     * @param count Number of vertices
+     * @param tolerance Maximum distance
+     * @param out Receives the kept vertices, must hold count * 2 values
+     * @return Number of vertices kept
+     */
+    public static int simplifyPolygon(final float[] vertices, final int count, final float tolerance, final float[] out) {
+        if(count <= 3) {
+            System.arraycopy(vertices, 0, out, 0, count * 2);
+            return count;
+        }
+        // Split the closed outline at the vertex farthest from the first one
+        int far = 0;
+        float farDistance = -1;
+        for(int i=1; i<count; i++) {
+            final float dx = vertices[i * 2] - vertices[0];
+            final float dy = vertices[i * 2 + 1] - vertices[1];
+            final float distance = dx * dx + dy * dy;
+            if(distance > farDistance) {
+                farDistance = distance;
+                far = i;
+            }
+        }
+        final boolean[] keep = new boolean[count];
+        keep[0] = true;
+        keep[far] = true;
+        final float toleranceSquared = tolerance * tolerance;
+        final int[] stack = new int[count * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = far;
+        stack[top++] = far;
+        stack[top++] = count;
+        while(top > 0) {
+            final int last = stack[--top];
+            final int first = stack[--top];
+            final int a = first * 2;
+            final int b = (last % count) * 2;
+            int index = -1;
+            float max = toleranceSquared;
+            for(int i=first+1; i<last; i++) {
+                final float distance = calculateSegmentDistanceSquared(vertices[i * 2], vertices[i * 2 + 1],
+                        vertices[a], vertices[a + 1], vertices[b], vertices[b + 1]);
+                if(distance > max) {
+                    max = distance;
+                    index = i;
+                }
+            }
+            if(index < 0)
+                continue;
+            keep[index] = true;
+            stack[top++] = first;
+            stack[top++] = index;
+            stack[top++] = index;
+            stack[top++] = last;
+        }
+        int kept = 0;
+        for(int i=0; i<count; i++) {
+            if(!keep[i])
+                continue;
+            out[kept * 2] = vertices[i * 2];
+            out[kept * 2 + 1] = vertices[i * 2 + 1];
+            kept++;
+        }
+        if(kept < 3) {
+            System.arraycopy(vertices, 0, out, 0, count * 2);
+            return count;
+        }
+        return kept;
+    }
+
+    /**
+     * Calculate curve centroid
+     *
+     * @param types Point types, see {@link ProfileImageView.Frame#POINT_VERTEX}
+     * @param points Interleaved x/y
+     * @param count Number of points
+     * @param out Receives x and y
+     */
+    static void calculateCurveCentroid(final byte[] types, final float[] points, final int count, final float[] out) {
+        final float[] vertices = new float[countFlattened(types, points, count, CURVE_TOLERANCE) * 2];
+        calculateFrameCentroid(vertices, flatten(types, points, count, CURVE_TOLERANCE, vertices), out);
+    }
+
+    /**
+     * Calculate curve center scale
+     *
+     * @param types Point types, see {@link ProfileImageView.Frame#POINT_VERTEX}
+     * @param points Interleaved x/y
+     * @param count Number of points
+     * @return
+     */
+    static float calculateCurveCenterScale(final byte[] types, final float[] points, final int count) {
+        final float[] vertices = new float[countFlattened(types, points, count, CURVE_TOLERANCE) * 2];
+        return calculateCenterScale(vertices, flatten(types, points, count, CURVE_TOLERANCE, vertices));
+    }
+
+    /**
+     * Count flattened vertices<br>
+     *     Curves are split in straight segments, the deviation from the curve stays under the tolerance.
+     *
+     * @param types Point types, see {@link ProfileImageView.Frame#POINT_VERTEX}
+     * @param points Interleaved x/y
+     * @param count Number of points
+     * @param tolerance Maximum deviation
+     * @return Number of vertices
+     */
+    static int countFlattened(final byte[] types, final float[] points, final int count, final float tolerance) {
+        int vertices = Math.min(count, 1);
+        for(int i=1; i<count; i++) {
+            switch(types[i]) {
+                case ProfileImageView.Frame.POINT_QUAD:
+                    vertices += calculateCurveSteps(points, i - 1, 2, tolerance);
+                    i += 1;
+                    break;
+                case ProfileImageView.Frame.POINT_CUBIC:
+                    vertices += calculateCurveSteps(points, i - 1, 3, tolerance);
+                    i += 2;
+                    break;
+                default:
+                    vertices++;
+                    break;
+            }
+        }
+        return vertices;
+    }
+
+    /**
+     * Flatten curves
+     *
+     * @param types Point types, see {@link ProfileImageView.Frame#POINT_VERTEX}
+     * @param points Interleaved x/y
+     * @param count Number of points
+     * @param tolerance Maximum deviation
+     * @param out Receives the interleaved x/y, must hold {@link #countFlattened(byte[], float[], int, float)} vertices
+     * @return Number of vertices
+     */
+    static int flatten(final byte[] types, final float[] points, final int count, final float tolerance, final float[] out) {
+        if(count == 0)
+            return 0;
+        out[0] = points[0];
+        out[1] = points[1];
+        int o = 2;
+        for(int i=1; i<count; i++) {
+            final int degree;
+            switch(types[i]) {
+                case ProfileImageView.Frame.POINT_QUAD:
+                    degree = 2;
+                    break;
+                case ProfileImageView.Frame.POINT_CUBIC:
+                    degree = 3;
+                    break;
+                default:
+                    out[o++] = points[i * 2];
+                    out[o++] = points[i * 2 + 1];
+                    continue;
+            }
+            final int steps = calculateCurveSteps(points, i - 1, degree, tolerance);
+            final int p = (i - 1) * 2;
+            for(int j=1; j<=steps; j++) {
+                final float t = j / (float) steps;
+                final float u = 1 - t;
+                if(degree == 2) {
+                    out[o++] = u * u * points[p] + 2 * u * t * points[p + 2] + t * t * points[p + 4];
+                    out[o++] = u * u * points[p + 1] + 2 * u * t * points[p + 3] + t * t * points[p + 5];
+                } else {
+                    out[o++] = u * u * u * points[p] + 3 * u * u * t * points[p + 2] + 3 * u * t * t * points[p + 4] + t * t * t * points[p + 6];
+                    out[o++] = u * u * u * points[p + 1] + 3 * u * u * t * points[p + 3] + 3 * u * t * t * points[p + 5] + t * t * t * points[p + 7];
+                }
+            }
+            i += degree - 1;
+        }
+        return o / 2;
+    }
+
+    /**
+     * Calculate curve steps<br>
+     *     Wang's formula, the number of lines that keep a bezier under the tolerance.
+     *
+     * @param points
+     * @param start Index of the first point of the curve
+     * @param degree 2 or 3
+     * @param tolerance
+     * @return
+     */
+    private static int calculateCurveSteps(final float[] points, final int start, final int degree, final float tolerance) {
+        final int p = start * 2;
+        float max = 0;
+        for(int i=0; i<degree-1; i++) {
+            final int a = p + i * 2;
+            final float ddx = points[a] - 2 * points[a + 2] + points[a + 4];
+            final float ddy = points[a + 1] - 2 * points[a + 3] + points[a + 5];
+            max = Math.max(max, ddx * ddx + ddy * ddy);
+        }
+        final double steps = Math.sqrt(degree * (degree - 1) * Math.sqrt(max) / (8.0 * tolerance));
+        return Math.max((int) Math.ceil(steps), 1);
+    }
+
+    /**
+     * Calculate curve bounds<br>
+     *     Exact bounds, curve extremes are found from the derivative roots.
+     *
+     * @param types Point types, see {@link ProfileImageView.Frame#POINT_VERTEX}
+     * @param points Interleaved x/y
+     * @param count Number of points
+     * @param out Receives left, top, right and bottom
+     */
+    static void calculateCurveBounds(final byte[] types, final float[] points, final int count, final float[] out) {
+        if(count == 0) {
+            out[0] = out[1] = out[2] = out[3] = 0;
+            return;
+        }
+        out[0] = out[2] = points[0];
+        out[1] = out[3] = points[1];
+        for(int i=1; i<count; i++) {
+            final int degree = types[i] == ProfileImageView.Frame.POINT_QUAD ? 2 : types[i] == ProfileImageView.Frame.POINT_CUBIC ? 3 : 1;
+            final int p = (i - 1) * 2;
+            // End point
+            final int end = p + degree * 2;
+            includeBounds(out, points[end], points[end + 1]);
+            if(degree > 1) {
+                includeCurveExtremes(out, points, p, degree, 0);
+                includeCurveExtremes(out, points, p, degree, 1);
+            }
+            i += degree - 1;
+        }
+    }
+
+    /**
+     * Include the extremes of one axis of a curve
+     *
+     * @param out
+     * @param points
+     * @param p Offset of the first point
+     * @param degree
+     * @param axis 0 for x, 1 for y
+     */
+    private static void includeCurveExtremes(final float[] out, final float[] points, final int p, final int degree, final int axis) {
+        final double p0 = points[p + axis];
+        final double p1 = points[p + 2 + axis];
+        final double p2 = points[p + 4 + axis];
+        if(degree == 2) {
+            final double d = p0 - 2 * p1 + p2;
+            if(d != 0)
+                includeCurvePoint(out, points, p, degree, (p0 - p1) / d);
+            return;
+        }
+        final double p3 = points[p + 6 + axis];
+        // Derivative: a t^2 + b t + c
+        final double a = -p0 + 3 * p1 - 3 * p2 + p3;
+        final double b = 2 * (p0 - 2 * p1 + p2);
+        final double c = p1 - p0;
+        if(Math.abs(a) < 1e-12) {
+            if(b != 0)
+                includeCurvePoint(out, points, p, degree, -c / b);
+            return;
+        }
+        final double discriminant = b * b - 4 * a * c;
+        if(discriminant < 0)
+            return;
+        final double root = Math.sqrt(discriminant);
+        includeCurvePoint(out, points, p, degree, (-b + root) / (2 * a));
+        includeCurvePoint(out, points, p, degree, (-b - root) / (2 * a));
+    }
+
+    /**
+     * Include a curve point if t is inside the curve
+     *
+     * @param out
+     * @param points
+     * @param p
+     * @param degree
+     * @param t
+     */
+    private static void includeCurvePoint(final float[] out, final float[] points, final int p, final int degree, final double t) {
+        if(t <= 0 || t >= 1)
+            return;
+        final double u = 1 - t;
+        final double x, y;
+        if(degree == 2) {
+            x = u * u * points[p] + 2 * u * t * points[p + 2] + t * t * points[p + 4];
+            y = u * u * points[p + 1] + 2 * u * t * points[p + 3] + t * t * points[p + 5];
+        } else {
+            x = u * u * u * points[p] + 3 * u * u * t * points[p + 2] + 3 * u * t * t * points[p + 4] + t * t * t * points[p + 6];
+            y = u * u * u * points[p + 1] + 3 * u * u * t * points[p + 3] + 3 * u * t * t * points[p + 5] + t * t * t * points[p + 7];
+        }
+        includeBounds(out, (float) x, (float) y);
+    }
+
+    /**
+     * Include a point in bounds
+     *
+     * @param out
+     * @param x
+     * @param y
+     */
+    private static void includeBounds(final float[] out, final float x, final float y) {
+        if(x < out[0]) out[0] = x;
+        if(y < out[1]) out[1] = y;
+        if(x > out[2]) out[2] = x;
+        if(y > out[3]) out[3] = y;
+    }
+
+    /**
+     * Trim Lru Cache<br>
+     *     Partial trims need API 17, before that the cache is emptied.
+     *
+     * @param cache
+     * @param maxSize In the units of the cache
+     */
+    static void trimLruCache(final LruCache<?, ?> cache, final int maxSize) {
+        if(maxSize <= 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR1)
+            cache.evictAll();
+        else
+            trimLruCacheJellyBeanMR1(cache, maxSize);
+    }
+
+    /**
+     * Trim Lru Cache (API 17)
+     *
+     * @param cache
+     * @param maxSize
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private static void trimLruCacheJellyBeanMR1(final LruCache<?, ?> cache, final int maxSize) {
+        cache.trimToSize(maxSize);
+    }
+
+    /**
+     * To Array
+     *
+     * @param vertices
+     * @return Interleaved x/y
+     */
+    private static float[] toArray(final List<ProfileImageView.Frame.FrameVertex> vertices) {
+        final float[] array = new float[vertices.size() * 2];
+        for(int i=0; i<vertices.size(); i++) {
+            final ProfileImageView.Frame.FrameVertex vertex = vertices.get(i);
+            array[i * 2] = vertex.x;
+            array[i * 2 + 1] = vertex.y;
         }
-        return maxY - minY;
+        return array;
     }
 }
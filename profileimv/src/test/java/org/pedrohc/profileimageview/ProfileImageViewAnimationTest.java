@@ -0,0 +1,117 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Feature animation driven by a manual clock.
+ */
+public class ProfileImageViewAnimationTest {
+
+    // Consts
+    final private static long DURATION = 100;
+    final private static float DELTA = 0.0001f;
+
+    private ManualClock mClock;
+    private ProfileImageViewAnimation mAnimation;
+
+    @Before
+    public void setUp() {
+        mClock = new ManualClock();
+        mClock.time = 5000;
+        mAnimation = new ProfileImageViewAnimation(mClock, DURATION);
+    }
+
+    @Test
+    public void idle_isAtRest() {
+        assertFalse(mAnimation.isRunning());
+        assertEquals(0.0f, mAnimation.getFrame(0, 20), DELTA);
+        assertEquals(1.0f, mAnimation.getFrame(1.0f, 0.8f), DELTA);
+    }
+
+    @Test
+    public void start_interpolatesTowardsTarget() {
+        assertTrue(mAnimation.start(ProfileImageViewAnimation.MODE_START));
+        assertTrue(mAnimation.isRunning());
+        assertEquals(0.0f, mAnimation.getFrame(0, 20), DELTA);
+        mClock.time += 25;
+        assertEquals(5.0f, mAnimation.getFrame(0, 20), DELTA);
+        mClock.time += 25;
+        assertEquals(10.0f, mAnimation.getFrame(0, 20), DELTA);
+    }
+
+    @Test
+    public void start_finishesAfterDuration() {
+        mAnimation.start(ProfileImageViewAnimation.MODE_START);
+        mClock.time += DURATION - 1;
+        assertTrue(mAnimation.isRunning());
+        mClock.time += 1;
+        assertFalse(mAnimation.isRunning());
+        assertEquals(20.0f, mAnimation.getFrame(0, 20), DELTA);
+        mClock.time += 1000;
+        assertEquals(20.0f, mAnimation.getFrame(0, 20), DELTA);
+    }
+
+    @Test
+    public void frame_usesOneTimeUntilTheEndStateIsDrawn() {
+        mAnimation.start(ProfileImageViewAnimation.MODE_START);
+        mClock.time += DURATION - 1;
+        mAnimation.beginFrame();
+        final float drawn = mAnimation.getFrame(0, 20);
+        // The clock reaches the end while the frame is drawn
+        mClock.time += 1;
+        assertEquals(drawn, mAnimation.getFrame(0, 20), DELTA);
+        assertTrue(drawn < 20.0f);
+        assertTrue(mAnimation.endFrame());
+        // Next frame draws the end state and stops
+        mAnimation.beginFrame();
+        assertEquals(20.0f, mAnimation.getFrame(0, 20), DELTA);
+        assertFalse(mAnimation.endFrame());
+    }
+
+    @Test
+    public void end_returnsToRest() {
+        mAnimation.start(ProfileImageViewAnimation.MODE_START);
+        mClock.time += DURATION;
+        mAnimation.start(ProfileImageViewAnimation.MODE_END);
+        assertEquals(20.0f, mAnimation.getFrame(0, 20), DELTA);
+        mClock.time += 50;
+        assertEquals(10.0f, mAnimation.getFrame(0, 20), DELTA);
+        mClock.time += 50;
+        assertEquals(0.0f, mAnimation.getFrame(0, 20), DELTA);
+        assertFalse(mAnimation.isRunning());
+    }
+
+    @Test
+    public void start_sameModeIsIgnored() {
+        assertTrue(mAnimation.start(ProfileImageViewAnimation.MODE_START));
+        mClock.time += 50;
+        assertFalse(mAnimation.start(ProfileImageViewAnimation.MODE_START));
+        assertEquals(10.0f, mAnimation.getFrame(0, 20), DELTA);
+    }
+
+    @Test
+    public void stop_isAtRest() {
+        mAnimation.start(ProfileImageViewAnimation.MODE_START);
+        mClock.time += 50;
+        mAnimation.stop();
+        assertFalse(mAnimation.isRunning());
+        assertEquals(ProfileImageViewAnimation.MODE_NULL, mAnimation.getMode());
+        assertEquals(0.0f, mAnimation.getFrame(0, 20), DELTA);
+    }
+
+    /**
+     * Manual Clock
+     */
+    private static class ManualClock implements ProfileImageViewAnimation.Clock {
+
+        long time;
+
+        @Override
+        public long uptimeMillis() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parallel batch rendering.
+ */
+public class ProfileImageViewBatchRendererTest {
+
+    @Test
+    public void render_matchesRasterizer() throws InterruptedException {
+        final int[] image = new int[20 * 20];
+        for(int i=0; i<image.length; i++)
+            image[i] = 0xFF000000 | (i * 4099);
+        final List<ProfileImageViewBatchRenderer.Job> jobs = new ArrayList<>();
+        final ProfileImageView.Frame[] frames = {ProfileImageView.Frame.SHAPE_CIRCLE, ProfileImageView.Frame.SHAPE_STAR};
+        for(int i=0; i<12; i++) {
+            final ProfileImageViewBatchRenderer.Job job = new ProfileImageViewBatchRenderer.Job();
+            job.tag = i;
+            job.image = image;
+            job.imageWidth = 20;
+            job.imageHeight = 20;
+            job.frame = frames[i % 2];
+            job.size = 24 + (i % 3) * 8;
+            job.shadow = i % 4 == 0;
+            jobs.add(job);
+        }
+        final ConcurrentHashMap<Object, int[]> results = new ConcurrentHashMap<>();
+        final ProfileImageViewBatchRenderer renderer = new ProfileImageViewBatchRenderer(3);
+        final int rendered = renderer.render(jobs.iterator(), new ProfileImageViewBatchRenderer.Sink() {
+            @Override
+            public void onRendered(final ProfileImageViewBatchRenderer.Job job, final int[] pixels) {
+                results.put(job.tag, pixels.clone());
+            }
+
+            @Override
+            public void onFailed(final ProfileImageViewBatchRenderer.Job job, final RuntimeException error) {
+                fail(error.getMessage());
+            }
+        });
+        renderer.shutdown();
+        assertEquals(jobs.size(), rendered);
+        for(final ProfileImageViewBatchRenderer.Job job : jobs) {
+            final ProfileImageViewRasterizer rasterizer = new ProfileImageViewRasterizer(job.size, job.size, 1.0f);
+            rasterizer.setFrame(job.frame);
+            rasterizer.setShadow(job.shadow);
+            final int[] expected = new int[job.size * job.size];
+            rasterizer.render(image, 20, 20, expected);
+            assertTrue(Arrays.equals(expected, results.get(job.tag)));
+        }
+    }
+
+    @Test
+    public void render_boundsInFlightJobs() throws InterruptedException {
+        final ProfileImageViewBatchRenderer renderer = new ProfileImageViewBatchRenderer(2);
+        final AtomicInteger taken = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicInteger maxPending = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final int rendered = renderer.render(new Iterator<ProfileImageViewBatchRenderer.Job>() {
+            @Override
+            public boolean hasNext() {
+                return taken.get() < 200;
+            }
+
+            @Override
+            public ProfileImageViewBatchRenderer.Job next() {
+                maxPending.set(Math.max(maxPending.get(), taken.incrementAndGet() - done.get()));
+                final ProfileImageViewBatchRenderer.Job job = new ProfileImageViewBatchRenderer.Job();
+                // Invalid size every 50 jobs
+                job.size = taken.get() % 50 == 0 ? 0 : 16;
+                return job;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }, new ProfileImageViewBatchRenderer.Sink() {
+            @Override
+            public void onRendered(final ProfileImageViewBatchRenderer.Job job, final int[] pixels) {
+                done.incrementAndGet();
+            }
+
+            @Override
+            public void onFailed(final ProfileImageViewBatchRenderer.Job job, final RuntimeException error) {
+                failed.incrementAndGet();
+                done.incrementAndGet();
+            }
+        });
+        renderer.shutdown();
+        assertEquals(196, rendered);
+        assertEquals(4, failed.get());
+        assertTrue(maxPending.get() <= renderer.getMaxInFlight() + 1);
+    }
+
+    @Test
+    public void render_rethrowsSinkException() throws InterruptedException {
+        final ProfileImageViewBatchRenderer renderer = new ProfileImageViewBatchRenderer(2);
+        final AtomicInteger taken = new AtomicInteger();
+        final RuntimeException error = new IllegalStateException("Sink failed");
+        try {
+            renderer.render(new Iterator<ProfileImageViewBatchRenderer.Job>() {
+                @Override
+                public boolean hasNext() {
+                    return taken.get() < 10000;
+                }
+
+                @Override
+                public ProfileImageViewBatchRenderer.Job next() {
+                    taken.incrementAndGet();
+                    final ProfileImageViewBatchRenderer.Job job = new ProfileImageViewBatchRenderer.Job();
+                    job.size = 16;
+                    return job;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            }, new ProfileImageViewBatchRenderer.Sink() {
+                @Override
+                public void onRendered(final ProfileImageViewBatchRenderer.Job job, final int[] pixels) {
+                    throw error;
+                }
+
+                @Override
+                public void onFailed(final ProfileImageViewBatchRenderer.Job job, final RuntimeException e) {
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(error, e);
+        } finally {
+            renderer.shutdown();
+        }
+        // Stopped pulling once the sink failed
+        assertTrue(taken.get() < 10000);
+    }
+
+    @Test(timeout = 10000)
+    public void render_afterShutdownIsRejected() throws InterruptedException {
+        final ProfileImageViewBatchRenderer renderer = new ProfileImageViewBatchRenderer(1);
+        renderer.shutdown();
+        final ProfileImageViewBatchRenderer.Job job = new ProfileImageViewBatchRenderer.Job();
+        job.size = 16;
+        try {
+            renderer.render(Arrays.asList(job).iterator(), new ProfileImageViewBatchRenderer.Sink() {
+                @Override
+                public void onRendered(final ProfileImageViewBatchRenderer.Job job, final int[] pixels) {
+                }
+
+                @Override
+                public void onFailed(final ProfileImageViewBatchRenderer.Job job, final RuntimeException error) {
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException e) {
+            // Expected, without waiting for the lost permit
+        }
+    }
+}
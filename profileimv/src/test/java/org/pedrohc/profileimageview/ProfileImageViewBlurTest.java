@@ -0,0 +1,56 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Box blur used by the shadow cache.
+ */
+public class ProfileImageViewBlurTest {
+
+    @Test
+    public void boxRadius_matchesSigma() {
+        assertEquals(0, ProfileImageViewBlur.calculateBoxRadius(0, 3));
+        assertEquals(1, ProfileImageViewBlur.calculateBoxRadius(1.0f, 3));
+        assertEquals(5, ProfileImageViewBlur.calculateBoxRadius(5.0f, 3));
+    }
+
+    @Test
+    public void blur_spreadsImpulseSymmetrically() {
+        final int size = 21;
+        final int[] values = new int[size * size];
+        values[10 * size + 10] = 255 * 9;
+        ProfileImageViewBlur.blur(values, size, size, 1, 1);
+        assertEquals(255, values[10 * size + 10]);
+        assertEquals(255, values[9 * size + 9]);
+        assertEquals(255, values[11 * size + 11]);
+        assertEquals(0, values[12 * size + 10]);
+        assertEquals(values[10 * size + 9], values[10 * size + 11]);
+    }
+
+    @Test
+    public void blur_keepsUniformInterior() {
+        final int size = 40;
+        final int[] values = new int[size * size];
+        for(int i=0; i<values.length; i++)
+            values[i] = 200;
+        ProfileImageViewBlur.blur(values, size, size, 2, 3);
+        assertEquals(200, values[20 * size + 20]);
+        assertTrue(values[0] < 200);
+    }
+
+    @Test
+    public void blur_parallelMatchesSerial() {
+        final int width = 300;
+        final int height = 260;
+        final int[] serial = new int[width * height];
+        for(int y=60; y<200; y++)
+            for(int x=80; x<220; x++)
+                serial[y * width + x] = 255;
+        final int[] parallel = serial.clone();
+        ProfileImageViewBlur.blur(serial, width, height, 4, 3, false);
+        ProfileImageViewBlur.blur(parallel, width, height, 4, 3, true);
+        assertArrayEquals(serial, parallel);
+    }
+}
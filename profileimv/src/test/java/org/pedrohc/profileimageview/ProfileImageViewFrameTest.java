@@ -0,0 +1,121 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Frame vertex storage and sealing.
+ */
+public class ProfileImageViewFrameTest {
+
+    @Test
+    public void addVertices_clampsAndCopiesBack() {
+        final ProfileImageView.Frame frame = new ProfileImageView.Frame();
+        frame.addVertex(0, -1);
+        frame.addVertices(new float[] {2f, 0.5f, -0.5f, 0.5f});
+        assertEquals(3, frame.getVertexCount());
+        final float[] out = new float[6];
+        assertEquals(3, frame.copyVertices(out));
+        assertArrayEquals(new float[] {0, -1, 1, 0.5f, -0.5f, 0.5f}, out, 0);
+        final List<ProfileImageView.Frame.FrameVertex> vertices = frame.getVertices();
+        assertEquals(3, vertices.size());
+        assertEquals(1f, vertices.get(1).x, 0);
+    }
+
+    @Test(expected = ProfileImageViewException.class)
+    public void addVertices_rejectsOddLength() {
+        new ProfileImageView.Frame().addVertices(new float[] {0, 1, 0});
+    }
+
+    @Test
+    public void clone_copiesVertices() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createNgon(6, 0);
+        final ProfileImageView.Frame clone = frame.clone();
+        assertNotSame(frame, clone);
+        assertEquals(frame, clone);
+        assertEquals(frame.hashCode(), clone.hashCode());
+        clone.addVertex(0, 0);
+        assertFalse(frame.equals(clone));
+        assertEquals(6, frame.getVertexCount());
+    }
+
+    @Test
+    public void seal_sharesInstanceAndRejectsChanges() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createNgon(5, 0).seal();
+        assertTrue(frame.isSealed());
+        assertSame(frame, frame.clone());
+        // Copies, callers may still edit them
+        final List<ProfileImageView.Frame.FrameVertex> vertices = frame.getVertices();
+        assertNotSame(vertices, frame.getVertices());
+        vertices.clear();
+        assertEquals(5, frame.getVertices().size());
+        try {
+            frame.addVertex(0, 0);
+            fail();
+        } catch (ProfileImageViewException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void ellipse_flattensWithinTolerance() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createEllipse(1f, 0.5f);
+        assertTrue(frame.hasCurves());
+        final float[] vertices = new float[frame.getVertexCount() * 2];
+        final int count = frame.copyVertices(vertices);
+        assertTrue(count > 8);
+        for(int i=0; i<count; i++) {
+            final double x = vertices[i * 2];
+            final double y = vertices[i * 2 + 1] / 0.5;
+            // Cubic arcs deviate 0.03% from the ellipse
+            assertEquals(1.0, Math.hypot(x, y), 2e-3);
+        }
+    }
+
+    @Test
+    public void sealing_keepsCenterSquareScaleAndEquality() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createNgon(6, 0);
+        final ProfileImageView.Frame sealed = frame.clone().seal();
+        assertEquals(1.0f, frame.getCenterSquareScale(), 0);
+        assertEquals(1.0f, sealed.getCenterSquareScale(), 0);
+        assertEquals(frame, sealed);
+        assertEquals(frame.hashCode(), sealed.hashCode());
+    }
+
+    @Test
+    public void circle_calculatesInscribedSquare() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createEllipse(1f, 1f).calculateCenterSquareScale().seal();
+        assertEquals(0.70710677f, frame.getCenterSquareScale(), 1e-3f);
+    }
+
+    @Test
+    public void roundedSquare_usesCurvesAndLines() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createRoundedSquare(0.5f);
+        assertTrue(frame.hasCurves());
+        final float[] vertices = new float[frame.getVertexCount() * 2];
+        final int count = frame.copyVertices(vertices);
+        final float[] bounds = new float[4];
+        ProfileImageViewUtils.calculateBounds(vertices, count, bounds);
+        assertArrayEquals(new float[] {-1, -1, 1, 1}, bounds, 1e-5f);
+        assertEquals(frame, frame.clone());
+    }
+
+    @Test(expected = ProfileImageViewException.class)
+    public void curve_needsStartVertex() {
+        new ProfileImageView.Frame().addQuadratic(0, 0, 1, 1);
+    }
+
+    @Test
+    public void levelOfDetail_coarserAtSmallRadius() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createNgon(360, 0).seal();
+        final int small = frame.getLevelOfDetail(48);
+        final int large = frame.getLevelOfDetail(400);
+        assertTrue(small > large);
+        assertTrue(frame.getLevelOfDetailCount(small) < frame.getLevelOfDetailCount(large));
+        assertEquals(-1, frame.getLevelOfDetail(2000));
+        assertEquals(-1, ProfileImageView.Frame.SHAPE_PENTAGON.getLevelOfDetail(48));
+    }
+}
@@ -0,0 +1,63 @@
+package org.pedrohc.profileimageview;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tiered trimming policy of the memory manager.
+ */
+public class ProfileImageViewMemoryManagerTest {
+
+    @Test
+    public void runningModerate_onlyShrinksRenders() {
+        final int level = ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE;
+        assertEquals(0.5f, retained(level, ProfileImageViewMemoryManager.TIER_RENDER), 0);
+        assertEquals(1.0f, retained(level, ProfileImageViewMemoryManager.TIER_SHADOW), 0);
+        assertEquals(1.0f, retained(level, ProfileImageViewMemoryManager.TIER_DECODED), 0);
+        assertEquals(1.0f, retained(level, ProfileImageViewMemoryManager.TIER_POOL), 0);
+    }
+
+    @Test
+    public void backgroundLevels_dropRendersFirst() {
+        final int[] levels = {
+                ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN, ComponentCallbacks2.TRIM_MEMORY_BACKGROUND,
+                ComponentCallbacks2.TRIM_MEMORY_MODERATE, ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+        };
+        float lastDecoded = 1.0f;
+        for(final int level : levels) {
+            assertEquals(0.0f, retained(level, ProfileImageViewMemoryManager.TIER_RENDER), 0);
+            // Never grows with the level
+            final float decoded = retained(level, ProfileImageViewMemoryManager.TIER_DECODED);
+            assertTrue(decoded <= lastDecoded);
+            lastDecoded = decoded;
+        }
+        assertEquals(1.0f, retained(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN, ProfileImageViewMemoryManager.TIER_DECODED), 0);
+        assertEquals(0.0f, lastDecoded, 0);
+    }
+
+    @Test
+    public void criticalLevels_dropEverything() {
+        final int[] levels = {ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL, ComponentCallbacks2.TRIM_MEMORY_COMPLETE};
+        for(final int level : levels)
+            for(int tier=0; tier<ProfileImageViewMemoryManager.TIER_COUNT; tier++)
+                assertEquals(0.0f, retained(level, tier), 0);
+    }
+
+    @Test
+    public void unknownLevel_keepsEverything() {
+        for(int tier=0; tier<ProfileImageViewMemoryManager.TIER_COUNT; tier++)
+            assertEquals(1.0f, retained(0, tier), 0);
+    }
+
+    @Test(expected = ProfileImageViewException.class)
+    public void invalidTier_throws() {
+        retained(ComponentCallbacks2.TRIM_MEMORY_COMPLETE, ProfileImageViewMemoryManager.TIER_COUNT);
+    }
+
+    private static float retained(final int level, final int tier) {
+        return ProfileImageViewMemoryManager.getRetainedFraction(level, tier);
+    }
+}
@@ -0,0 +1,85 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Rendering metrics histograms and counters.
+ */
+public class ProfileImageViewMetricsTest {
+
+    private ProfileImageViewMetrics mMetrics;
+
+    @Before
+    public void setUp() {
+        mMetrics = ProfileImageViewMetrics.getInstance();
+        mMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        mMetrics.setEnabled(false);
+        mMetrics.setListener(null);
+        mMetrics.reset();
+    }
+
+    @Test
+    public void bucket_isPowerOfTwo() {
+        assertEquals(0, ProfileImageViewMetrics.getBucket(0));
+        assertEquals(1, ProfileImageViewMetrics.getBucket(1));
+        assertEquals(2, ProfileImageViewMetrics.getBucket(2));
+        assertEquals(2, ProfileImageViewMetrics.getBucket(3));
+        assertEquals(11, ProfileImageViewMetrics.getBucket(1024));
+        assertEquals(63, ProfileImageViewMetrics.getBucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        assertEquals(0, mMetrics.begin(ProfileImageViewMetrics.TIMER_DRAW));
+        mMetrics.end(null, ProfileImageViewMetrics.TIMER_DRAW, 0);
+        mMetrics.count(ProfileImageViewMetrics.COUNTER_PATHS_BUILT);
+        final ProfileImageViewMetrics.Snapshot snapshot = mMetrics.getSnapshot();
+        assertEquals(0, snapshot.getCount(ProfileImageViewMetrics.TIMER_DRAW));
+        assertEquals(0, snapshot.getCounter(ProfileImageViewMetrics.COUNTER_PATHS_BUILT));
+    }
+
+    @Test
+    public void snapshot_aggregatesTimes() {
+        for(int i=1; i<=100; i++)
+            mMetrics.record(ProfileImageViewMetrics.TIMER_LAYOUT, i * 1000);
+        final ProfileImageViewMetrics.Snapshot snapshot = mMetrics.getSnapshot();
+        assertEquals(100, snapshot.getCount(ProfileImageViewMetrics.TIMER_LAYOUT));
+        assertEquals(5050000, snapshot.getTotalTime(ProfileImageViewMetrics.TIMER_LAYOUT));
+        assertEquals(100000, snapshot.getMaxTime(ProfileImageViewMetrics.TIMER_LAYOUT));
+        assertEquals(50500, snapshot.getAverageTime(ProfileImageViewMetrics.TIMER_LAYOUT));
+        // 50us falls in [32768, 65536)
+        assertEquals(65535, snapshot.getPercentile(ProfileImageViewMetrics.TIMER_LAYOUT, 50));
+        assertEquals(100000, snapshot.getPercentile(ProfileImageViewMetrics.TIMER_LAYOUT, 100));
+        assertEquals(0, snapshot.getCount(ProfileImageViewMetrics.TIMER_DRAW));
+    }
+
+    @Test
+    public void enabled_notifiesListener() {
+        final long[] timing = new long[2];
+        mMetrics.setEnabled(true);
+        mMetrics.setListener(new ProfileImageViewMetrics.Listener() {
+            @Override
+            public void onTiming(final ProfileImageView view, final int timer, final long nanos) {
+                timing[0] = timer;
+                timing[1] = nanos;
+            }
+        });
+        final long start = mMetrics.begin(ProfileImageViewMetrics.TIMER_DECODE);
+        assertTrue(start != 0);
+        mMetrics.end(null, ProfileImageViewMetrics.TIMER_DECODE, start);
+        mMetrics.count(ProfileImageViewMetrics.COUNTER_BITMAPS_DECODED);
+        assertEquals(ProfileImageViewMetrics.TIMER_DECODE, timing[0]);
+        final ProfileImageViewMetrics.Snapshot snapshot = mMetrics.getSnapshot();
+        assertEquals(1, snapshot.getCount(ProfileImageViewMetrics.TIMER_DECODE));
+        assertEquals(timing[1], snapshot.getTotalTime(ProfileImageViewMetrics.TIMER_DECODE));
+        assertEquals(1, snapshot.getCounter(ProfileImageViewMetrics.COUNTER_BITMAPS_DECODED));
+    }
+}
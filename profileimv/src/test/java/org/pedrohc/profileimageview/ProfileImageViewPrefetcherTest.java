@@ -0,0 +1,235 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prefetch window bounded by the scroll velocity, and the tasks it submits.
+ */
+public class ProfileImageViewPrefetcherTest {
+
+    /**
+     * Items with distinct images, counting the binds asked for
+     */
+    private static class FakeSource implements ProfileImageViewPrefetcher.Source {
+
+        private final int mCount;
+        private final int[] mRequests;
+
+        private FakeSource(final int count) {
+            mCount = count;
+            mRequests = new int[count];
+        }
+
+        @Override
+        public int getCount() {
+            return mCount;
+        }
+
+        @Override
+        public ProfileImageViewPrefetcher.Item getItem(final int position) {
+            mRequests[position]++;
+            final ProfileImageViewPrefetcher.Item item = new ProfileImageViewPrefetcher.Item();
+            item.imageResId = 1000 + position;
+            item.size = 100;
+            return item;
+        }
+    }
+
+    /**
+     * Records the decodes, the images in decoded are already cached
+     */
+    private static class FakeCache implements ProfileImageViewPrefetcher.Cache {
+
+        private final Set<Integer> mDecoded = new HashSet<>();
+        private final List<Integer> mDecodes = new ArrayList<>();
+        private final List<ProfileImageView.Frame> mShadows = new ArrayList<>();
+
+        @Override
+        public boolean contains(final int resId, final int decodeSize) {
+            return mDecoded.contains(resId);
+        }
+
+        @Override
+        public void decode(final int resId, final int decodeSize) {
+            mDecodes.add(resId);
+            mDecoded.add(resId);
+        }
+
+        @Override
+        public void renderShadow(final ProfileImageView.Frame frame, final int size, final int blurRadius, final int color) {
+            mShadows.add(frame);
+        }
+    }
+
+    /**
+     * Queues the tasks, run on demand
+     */
+    private static class QueueExecutor implements Executor {
+
+        private final List<FutureTask<?>> mTasks = new ArrayList<>();
+
+        @Override
+        public void execute(final Runnable task) {
+            mTasks.add((FutureTask<?>) task);
+        }
+
+        private void runAll() {
+            for(final FutureTask<?> task : mTasks)
+                task.run();
+        }
+    }
+
+    @Test
+    public void onScroll_prefetchesEachPositionOnce() {
+        final FakeSource source = new FakeSource(100);
+        final FakeCache cache = new FakeCache();
+        final QueueExecutor executor = new QueueExecutor();
+        final ProfileImageViewPrefetcher prefetcher = new ProfileImageViewPrefetcher(1, 23, source, executor, cache);
+        prefetcher.onScroll(10, 14, 0);
+        // 8, 9, 15, 16
+        assertEquals(4, executor.mTasks.size());
+        prefetcher.onScroll(10, 14, 0);
+        prefetcher.onScroll(11, 15, 0);
+        // Only 10 and 17 are new, 8 left the window
+        assertEquals(6, executor.mTasks.size());
+        for(int position = 9; position <= 17; position++) {
+            if(position < 11 || position > 14)
+                assertEquals(1, source.mRequests[position]);
+        }
+        executor.runAll();
+        assertEquals(5, cache.mDecodes.size());
+        assertFalse(cache.mDecodes.contains(1008));
+    }
+
+    @Test
+    public void onScroll_cancelsTasksLeavingTheWindow() {
+        final FakeSource source = new FakeSource(100);
+        final FakeCache cache = new FakeCache();
+        final QueueExecutor executor = new QueueExecutor();
+        final ProfileImageViewPrefetcher prefetcher = new ProfileImageViewPrefetcher(1, 23, source, executor, cache);
+        prefetcher.onScroll(10, 14, 0);
+        prefetcher.onScroll(50, 54, 0);
+        assertEquals(8, executor.mTasks.size());
+        for(int i = 0; i < 4; i++)
+            assertTrue(executor.mTasks.get(i).isCancelled());
+        for(int i = 4; i < 8; i++)
+            assertFalse(executor.mTasks.get(i).isCancelled());
+        executor.runAll();
+        assertEquals(4, cache.mDecodes.size());
+        for(final int resId : cache.mDecodes)
+            assertTrue(resId >= 1048 && resId <= 1056);
+        // Back to the start, cancelled positions are prefetched again
+        prefetcher.onScroll(10, 14, 0);
+        assertEquals(12, executor.mTasks.size());
+        prefetcher.cancel();
+        for(int i = 8; i < 12; i++)
+            assertTrue(executor.mTasks.get(i).isCancelled());
+    }
+
+    @Test
+    public void onScroll_skipsDecodedItems() {
+        final FakeSource source = new FakeSource(100);
+        final FakeCache cache = new FakeCache();
+        cache.mDecoded.add(1008);
+        cache.mDecoded.add(1016);
+        final QueueExecutor executor = new QueueExecutor();
+        final ProfileImageViewPrefetcher prefetcher = new ProfileImageViewPrefetcher(1, 23, source, executor, cache);
+        prefetcher.onScroll(10, 14, 0);
+        assertEquals(2, executor.mTasks.size());
+        executor.runAll();
+        assertEquals(2, cache.mDecodes.size());
+        assertTrue(cache.mDecodes.contains(1009));
+        assertTrue(cache.mDecodes.contains(1015));
+        // Not asked again while in the window
+        prefetcher.onScroll(10, 14, 0);
+        assertEquals(1, source.mRequests[8]);
+        assertEquals(2, executor.mTasks.size());
+    }
+
+    @Test
+    public void idle_prefetchesMinOnEachSide() {
+        final int[] window = new int[2];
+        ProfileImageViewPrefetcher.calculateWindow(10, 14, 0, 100, 2, 12, window);
+        assertEquals(8, window[0]);
+        assertEquals(17, window[1]);
+    }
+
+    @Test
+    public void scrolling_growsWindowAhead() {
+        final int[] window = new int[2];
+        // 10 items/s reaches 5 items in half a second
+        ProfileImageViewPrefetcher.calculateWindow(10, 14, 10, 100, 2, 12, window);
+        assertEquals(8, window[0]);
+        assertEquals(20, window[1]);
+        ProfileImageViewPrefetcher.calculateWindow(10, 14, -10, 100, 2, 12, window);
+        assertEquals(5, window[0]);
+        assertEquals(17, window[1]);
+    }
+
+    @Test
+    public void fling_isBoundedByMaxLookahead() {
+        final int[] window = new int[2];
+        ProfileImageViewPrefetcher.calculateWindow(10, 14, 1000, 100, 2, 12, window);
+        assertEquals(27, window[1]);
+    }
+
+    @Test
+    public void window_isClampedToItems() {
+        final int[] window = new int[2];
+        ProfileImageViewPrefetcher.calculateWindow(0, 4, -1000, 6, 2, 12, window);
+        assertEquals(0, window[0]);
+        assertEquals(6, window[1]);
+        ProfileImageViewPrefetcher.calculateWindow(0, 0, 0, 0, 2, 12, window);
+        assertEquals(0, window[0]);
+        assertEquals(0, window[1]);
+    }
+
+    @Test
+    public void onScroll_rendersOnlyBitmapShadows() {
+        final ProfileImageView.Frame[] frames = {ProfileImageView.Frame.SHAPE_CIRCLE, ProfileImageView.Frame.SHAPE_STAR};
+        final ProfileImageViewPrefetcher.Source source = new ProfileImageViewPrefetcher.Source() {
+            @Override
+            public int getCount() {
+                return 4;
+            }
+
+            @Override
+            public ProfileImageViewPrefetcher.Item getItem(final int position) {
+                final ProfileImageViewPrefetcher.Item item = new ProfileImageViewPrefetcher.Item();
+                item.imageResId = 1000;
+                item.frame = frames[position % 2];
+                item.theme = ProfileImageViewRasterizer.createDefaultTheme(1);
+                item.size = 100;
+                item.shadow = true;
+                return item;
+            }
+        };
+        final FakeCache cache = new FakeCache();
+        cache.mDecoded.add(1000);
+        // Lollipop casts the shadow of convex frames through the outline
+        QueueExecutor executor = new QueueExecutor();
+        new ProfileImageViewPrefetcher(1, 21, source, executor, cache).onScroll(0, 0, 10);
+        executor.runAll();
+        // Stars at 1 and 3, the circle at 2 is skipped
+        assertEquals(2, executor.mTasks.size());
+        assertEquals(2, cache.mShadows.size());
+        for(final ProfileImageView.Frame frame : cache.mShadows)
+            assertSame(ProfileImageView.Frame.SHAPE_STAR, frame);
+        // Before it every frame draws the bitmap
+        cache.mShadows.clear();
+        executor = new QueueExecutor();
+        new ProfileImageViewPrefetcher(1, 19, source, executor, cache).onScroll(0, 0, 10);
+        executor.runAll();
+        assertEquals(3, executor.mTasks.size());
+        assertEquals(3, cache.mShadows.size());
+    }
+}
@@ -0,0 +1,97 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Headless rasterizer, coverage and compositing.
+ */
+public class ProfileImageViewRasterizerTest {
+
+    @Test
+    public void accumulateLine_coversSquareExactly() {
+        final int size = 8;
+        final float[] accumulation = new float[size * size + 4];
+        final float[] square = {2.5f, 2.5f, 6.0f, 2.5f, 6.0f, 5.0f, 2.5f, 5.0f};
+        for(int i=0; i<4; i++) {
+            final int b = ((i + 1) % 4) * 2;
+            ProfileImageViewRasterizer.accumulateLine(accumulation, size, size, square[i * 2], square[i * 2 + 1], square[b], square[b + 1]);
+        }
+        float sum = 0;
+        float area = 0;
+        for(int i=0; i<size*size; i++) {
+            sum += accumulation[i];
+            area += Math.min(Math.abs(sum), 1.0f);
+        }
+        assertEquals(3.5f * 2.5f, area, 1e-4f);
+    }
+
+    @Test
+    public void render_circleArea() {
+        final int size = 64;
+        final ProfileImageViewRasterizer rasterizer = new ProfileImageViewRasterizer(size, size, 1.0f);
+        rasterizer.setFrame(ProfileImageView.Frame.SHAPE_CIRCLE);
+        // Only the photo, overlapping anti-aliased edges would add up
+        final ProfileImageView.Theme theme = ProfileImageViewRasterizer.createDefaultTheme(1.0f);
+        theme.borderColor = 0;
+        theme.backgroundColor = 0;
+        rasterizer.setTheme(theme);
+        final int[] out = new int[size * size];
+        rasterizer.render(null, 0, 0, out);
+        float area = 0;
+        for(final int pixel : out)
+            area += (pixel >>> 24) / 255.0f;
+        assertEquals(Math.PI * 32 * 32, area, 2.0);
+        assertEquals(0xFFFFFFFF, out[32 * size + 32]);
+        assertEquals(0, out[0]);
+    }
+
+    @Test
+    public void render_samplesSolidImage() {
+        final int size = 48;
+        final int[] image = new int[16 * 16];
+        for(int i=0; i<image.length; i++)
+            image[i] = 0xFF204080;
+        final ProfileImageViewRasterizer rasterizer = new ProfileImageViewRasterizer(size, size, 1.0f);
+        rasterizer.setFrame(ProfileImageView.Frame.SHAPE_SQUARE);
+        rasterizer.setBorder(true);
+        final int[] out = new int[size * size];
+        rasterizer.render(image, 16, 16, out);
+        // Photo in the center, border at the edges
+        assertEquals(0xFF204080, out[24 * size + 24]);
+        assertEquals(0xFFFFFFFF, out[24 * size + 1]);
+    }
+
+    @Test
+    public void render_featureMultipliesPhoto() {
+        final int size = 32;
+        final ProfileImageViewRasterizer rasterizer = new ProfileImageViewRasterizer(size, size, 1.0f);
+        rasterizer.setFrame(ProfileImageView.Frame.SHAPE_SQUARE);
+        rasterizer.setMode(ProfileImageView.Mode.FEATURE);
+        final int[] out = new int[size * size];
+        rasterizer.render(null, 0, 0, out);
+        final int gray = ProfileImageView.DEFAULT_FEATURE_MULTIPLY_SHADOW_COLOR;
+        assertEquals(0xFF000000 | (gray << 16) | (gray << 8) | gray, out[16 * size + 16]);
+    }
+
+    @Test
+    public void render_shadowBelowFrame() {
+        final int size = 64;
+        final ProfileImageViewRasterizer rasterizer = new ProfileImageViewRasterizer(size, size, 1.0f);
+        rasterizer.setFrame(ProfileImageView.Frame.SHAPE_CIRCLE);
+        rasterizer.setShadow(true);
+        final int[] out = new int[size * size];
+        rasterizer.render(null, 0, 0, out);
+        // The shadow is offset down
+        final int top = out[size + 32] >>> 24;
+        final int bottom = out[(size - 3) * size + 32] >>> 24;
+        assertTrue(bottom > top);
+        assertTrue(bottom < 255);
+    }
+
+    @Test(expected = ProfileImageViewException.class)
+    public void render_rejectsSmallOutput() {
+        new ProfileImageViewRasterizer(8, 8, 1.0f).render(null, 0, 0, new int[10]);
+    }
+}
@@ -0,0 +1,164 @@
+package org.pedrohc.profileimageview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pure helpers of ProfileImageViewUtils.
+ */
+public class ProfileImageViewUtilsTest {
+
+    @Test
+    public void inSampleSize_fullResolutionWithoutTarget() {
+        assertEquals(1, ProfileImageViewUtils.calculateInSampleSize(4000, 3000, 0));
+    }
+
+    @Test
+    public void inSampleSize_keepsLongestSideAboveTarget() {
+        assertEquals(32, ProfileImageViewUtils.calculateInSampleSize(4000, 3000, 96));
+        assertEquals(2, ProfileImageViewUtils.calculateInSampleSize(4000, 3000, 1500));
+        assertEquals(1, ProfileImageViewUtils.calculateInSampleSize(4000, 3000, 2001));
+        assertEquals(1, ProfileImageViewUtils.calculateInSampleSize(48, 48, 96));
+    }
+
+    @Test
+    public void decodeSize_usesKnownSide() {
+        assertEquals(80, ProfileImageViewUtils.calculateDecodeSize(80, 120, null));
+        // wrap_content in an unconstrained parent
+        assertEquals(120, ProfileImageViewUtils.calculateDecodeSize(0, 120, null));
+        assertEquals(80, ProfileImageViewUtils.calculateDecodeSize(80, -8, null));
+        assertEquals(0, ProfileImageViewUtils.calculateDecodeSize(0, -8, null));
+    }
+
+    @Test
+    public void bounds_packedVertices() {
+        final float[] bounds = new float[4];
+        ProfileImageViewUtils.calculateBounds(new float[] {-0.5f, -1f, -0.25f, 0.5f, -0.75f, 0f}, 3, bounds);
+        assertArrayEquals(new float[] {-0.75f, -1f, -0.25f, 0.5f}, bounds, 0);
+    }
+
+    @Test
+    public void centroid_packedVertices() {
+        final float[] centroid = new float[2];
+        ProfileImageViewUtils.calculateFrameCentroid(new float[] {0, 0, 1, 0, 1, 1, 0, 1}, 4, centroid);
+        assertEquals(0.5f, centroid[0], 1e-6f);
+        assertEquals(0.5f, centroid[1], 1e-6f);
+    }
+
+    @Test
+    public void convex_packedVertices() {
+        assertTrue(ProfileImageViewUtils.isConvex(new float[] {0, -1, 1, 0, 0, 1, -1, 0}, 4));
+        assertFalse(ProfileImageViewUtils.isConvex(new float[] {0, -1, 1, 0, 0, 0, 0, 1, -1, 0}, 5));
+    }
+
+    @Test
+    public void centerScale_matchesNativeConstants() {
+        assertCenterScale(0.5720635f, ProfileImageView.Frame.SHAPE_PENTAGON);
+        assertCenterScale(0.6123717f, ProfileImageView.Frame.SHAPE_HEXAGON);
+        assertCenterScale(0.6370865f, ProfileImageView.Frame.SHAPE_HEPTAGON);
+        assertCenterScale(0.664464f, ProfileImageView.Frame.SHAPE_ENNEAGON);
+        assertCenterScale(0.6724988f, ProfileImageView.Frame.SHAPE_DECAGON);
+        assertCenterScale(0.5f, ProfileImageView.Frame.SHAPE_DIAMOND);
+        assertCenterScale(0.39267996f, ProfileImageView.Frame.SHAPE_TRIANGLE);
+    }
+
+    @Test
+    public void centerScale_isBelowHandTunedConstants() {
+        // Octagon: the square corners sit on the diagonal vertices, the inscribed circle touches the
+        // edges first, cos(22.5) * cos(45)
+        assertCenterScale((float) (Math.cos(Math.PI / 8) * Math.cos(Math.PI / 4)), ProfileImageView.Frame.SHAPE_OCTAGON);
+        assertTrue(ProfileImageView.Frame.SHAPE_OCTAGON.getCenterSquareScale() > calculateCenterScale(ProfileImageView.Frame.SHAPE_OCTAGON));
+        // Star: the inner vertices limit the circle, the constant lets the photo reach into the arms
+        assertCenterScale(0.2680503f, ProfileImageView.Frame.SHAPE_STAR);
+        assertTrue(ProfileImageView.Frame.SHAPE_STAR.getCenterSquareScale() > calculateCenterScale(ProfileImageView.Frame.SHAPE_STAR));
+    }
+
+    @Test
+    public void centerScale_matchesSampledPerimeter() {
+        final ProfileImageView.Frame[] frames = {
+                ProfileImageView.Frame.createRoundedSquare(0.3f),
+                ProfileImageView.Frame.createEllipse(1f, 0.6f),
+                ProfileImageView.Frame.createNgon(12, 15),
+                ProfileImageView.Frame.SHAPE_STAR
+        };
+        for(final ProfileImageView.Frame frame : frames) {
+            final float[] vertices = new float[frame.getVertexCount() * 2];
+            final int count = frame.copyVertices(vertices);
+            assertEquals(sampleCenterScale(vertices, count), ProfileImageViewUtils.calculateCenterScale(vertices, count), 1e-3f);
+        }
+    }
+
+    private static void assertCenterScale(final float expected, final ProfileImageView.Frame frame) {
+        assertEquals(expected, calculateCenterScale(frame), 1e-4f);
+    }
+
+    private static float calculateCenterScale(final ProfileImageView.Frame frame) {
+        final float[] vertices = new float[frame.getVertexCount() * 2];
+        final int count = frame.copyVertices(vertices);
+        return ProfileImageViewUtils.calculateCenterScale(vertices, count);
+    }
+
+    /**
+     * Dense perimeter walk, reference for the exact solver
+     */
+    private static float sampleCenterScale(final float[] vertices, final int count) {
+        final float[] centroid = new float[2];
+        ProfileImageViewUtils.calculateFrameCentroid(vertices, count, centroid);
+        double min = 1.0;
+        for(int i=0; i<count; i++) {
+            final int a = i * 2;
+            final int b = ((i + 1) % count) * 2;
+            for(int j=0; j<=1000; j++) {
+                final double t = j / 1000.0;
+                final double x = vertices[a] + (vertices[b] - vertices[a]) * t - centroid[0];
+                final double y = vertices[a + 1] + (vertices[b + 1] - vertices[a + 1]) * t - centroid[1];
+                min = Math.min(min, Math.hypot(x, y));
+            }
+        }
+        return (float) (min * Math.cos(Math.PI / 4));
+    }
+
+    @Test
+    public void curveBounds_includeExtremes() {
+        final byte[] types = {
+                ProfileImageView.Frame.POINT_VERTEX,
+                ProfileImageView.Frame.POINT_CUBIC,
+                ProfileImageView.Frame.POINT_CUBIC,
+                ProfileImageView.Frame.POINT_VERTEX,
+                ProfileImageView.Frame.POINT_QUAD,
+                ProfileImageView.Frame.POINT_VERTEX
+        };
+        // Cubic bulging to y = -0.75, quadratic bulging to y = 0.5
+        final float[] points = {0, 0, 0, -1, 1, -1, 1, 0, 0, 1, -1, 0};
+        final float[] bounds = new float[4];
+        ProfileImageViewUtils.calculateCurveBounds(types, points, 6, bounds);
+        assertArrayEquals(new float[] {-1, -0.75f, 1, 0.5f}, bounds, 1e-6f);
+    }
+
+    @Test
+    public void simplifyPolygon_staysWithinTolerance() {
+        final ProfileImageView.Frame frame = ProfileImageView.Frame.createNgon(360, 0);
+        final float[] vertices = new float[frame.getVertexCount() * 2];
+        final int count = frame.copyVertices(vertices);
+        final float[] simplified = new float[count * 2];
+        final int kept = ProfileImageViewUtils.simplifyPolygon(vertices, count, 0.008f, simplified);
+        assertTrue(kept >= 3 && kept < 40);
+        for(int i=0; i<count; i++) {
+            float min = Float.MAX_VALUE;
+            for(int j=0; j<kept; j++) {
+                final int k = ((j + 1) % kept) * 2;
+                min = Math.min(min, ProfileImageViewUtils.calculateSegmentDistanceSquared(vertices[i * 2], vertices[i * 2 + 1],
+                        simplified[j * 2], simplified[j * 2 + 1], simplified[k], simplified[k + 1]));
+            }
+            assertTrue((float) Math.sqrt(min) <= 0.008f);
+        }
+    }
+
+    @Test
+    public void simplifyPolygon_keepsCorners() {
+        final float[] square = {-1, -1, 0, -1, 1, -1, 1, 0, 1, 1, 0, 1, -1, 1, -1, 0};
+        final float[] out = new float[square.length];
+        assertEquals(4, ProfileImageViewUtils.simplifyPolygon(square, 8, 0.01f, out));
+    }
+}